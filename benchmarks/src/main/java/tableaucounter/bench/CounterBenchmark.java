@@ -0,0 +1,88 @@
+package tableaucounter.bench;
+
+import java.io.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import tableaucounter.*;
+
+/**
+ * Measures the serial counters: {@code Counter.count} formatting every
+ * tableau into a writer that discards it or handing it to a sink that only
+ * counts it, the stream of tableaux, the bare search underneath them, checking
+ * every candidate on its own or not, and the frontier count that skips
+ * enumeration altogether.
+ * @author Benjamin Levandowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CounterBenchmark {
+
+    @Param({"tableau-txt", "notes-3x3", "rect-3x4", "nonrect-small"})
+    public String shape;
+
+    private Tableau tableau;
+
+    @Setup
+    public void setUp() {
+        tableau = new Tableau(Shapes.weights(shape));
+    }
+
+    @Benchmark
+    public long writeCount(TableauRates rates) throws IOException {
+        long count;
+        try (BufferedWriter writer = new BufferedWriter(new NullWriter())) {
+            count = new Counter(tableau).count(writer);
+        }
+        rates.tableaux += count;
+        return count;
+    }
+
+    @Benchmark
+    public long sinkCount(TableauRates rates) throws IOException {
+        long count = new Counter(tableau).count(new CountingSink());
+        rates.tableaux += count;
+        return count;
+    }
+
+    @Benchmark
+    public long parallelStream(TableauRates rates) {
+        long count = new Counter(tableau).stream().parallel().count();
+        rates.tableaux += count;
+        return count;
+    }
+
+    @Benchmark
+    public long search(Rates rates) {
+        SearchState search = new SearchState(tableau);
+        long count = search.countAll();
+        rates.nodes += search.getNodes();
+        rates.tableaux += count;
+        return count;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dtableaucounter.scalar=true")
+    public long searchScalar(Rates rates) {
+        return search(rates);
+    }
+
+    @Benchmark
+    public long searchWithoutLookahead(Rates rates) {
+        SearchState search = new SearchState(tableau, false);
+        long count = search.countAll();
+        rates.nodes += search.getNodes();
+        rates.tableaux += count;
+        return count;
+    }
+
+    @Benchmark
+    public long frontier(TableauRates rates) {
+        long count = new FrontierCounter(tableau).count();
+        rates.tableaux += count;
+        return count;
+    }
+}
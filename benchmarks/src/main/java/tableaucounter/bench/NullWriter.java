@@ -0,0 +1,23 @@
+package tableaucounter.bench;
+
+import java.io.*;
+
+/**
+ * A writer that throws everything away, so only the cost of producing the
+ * text is measured.
+ * @author Benjamin Levandowski
+ */
+final class NullWriter extends Writer {
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {}
+
+    @Override
+    public void write(String string, int offset, int length) {}
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,37 @@
+package tableaucounter.bench;
+
+import java.io.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import tableaucounter.*;
+
+/**
+ * Measures a full parallel count on every processor.
+ * @author Benjamin Levandowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    @Param({"tableau-txt", "notes-3x3", "rect-3x4", "nonrect-small"})
+    public String shape;
+
+    private Tableau tableau;
+
+    @Setup
+    public void setUp() {
+        tableau = new Tableau(Shapes.weights(shape));
+    }
+
+    @Benchmark
+    public long count(TableauRates rates) throws IOException {
+        long count = new ForkJoinCounter(tableau,
+                Runtime.getRuntime().availableProcessors()).count();
+        rates.tableaux += count;
+        return count;
+    }
+}
@@ -0,0 +1,31 @@
+package tableaucounter.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Extra counters reported by JMH as nodes/sec and tableaux/sec next to the
+ * benchmark score, for benchmarks that drive the search directly.
+ * @author Benjamin Levandowski
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Rates {
+
+    /**
+     * Search tree nodes visited during the iteration.
+     */
+    public long nodes;
+    /**
+     * Tableaux found during the iteration.
+     */
+    public long tableaux;
+
+    /**
+     * Clears the counters before each iteration.
+     */
+    @Setup(Level.Iteration)
+    public void clear() {
+        nodes = 0L;
+        tableaux = 0L;
+    }
+}
@@ -0,0 +1,60 @@
+package tableaucounter.bench;
+
+import java.util.concurrent.*;
+
+/**
+ * The fixed suite of shapes and weights every benchmark runs against, so
+ * numbers from different changes can be compared directly.
+ * @author Benjamin Levandowski
+ */
+final class Shapes {
+
+    private Shapes() {}
+
+    /**
+     * Returns the weight matrix of a named shape.
+     * @param name
+     * the name of the shape
+     * @return the weights of each cell, one row at a time
+     */
+    static int[][] weights(String name) {
+        switch(name) {
+            case "tableau-txt":  //Tableau.txt as checked in
+                return new int[][] {{1, 1, 1, 6}, {1, 1, 1, 1}, {1, 1, 1, 1},
+                                    {1, 1, 1, 1}};
+            case "notes-3x3":  //The "56 seconds downto 16" shape of notes.txt
+                return new int[][] {{1, 3, 3}, {3, 3, 3}, {3, 3, 1}};
+            case "rect-3x4":
+                return new int[][] {{1, 1, 1, 1}, {1, 1, 1, 1}, {1, 1, 1, 1}};
+            case "staircase-7654":  //The non-rectangular shape of notes.txt
+                return new int[][] {{1, 1, 1, 1, 1, 1, 1}, {1, 1, 1, 1, 1, 1},
+                                    {1, 1, 1, 1, 1}, {1, 1, 1, 1}};
+            case "nonrect-small":
+                return new int[][] {{1, 1, 2, 1}, {1, 2, 1}, {3}};
+            default:
+                if(name.startsWith("square-"))
+                    return square(Integer.parseInt(name.substring(7)));
+                throw new RejectedExecutionException("Unknown shape " + name);
+        }
+    }
+
+    /**
+     * Returns an n by n square of cells weighted 1, 2 and 3 in turn, with
+     * both corners weighted 1 as a rectangle needs.  These are too big to
+     * count and only measure building the tableau.
+     * @param n
+     * the number of rows and columns
+     * @return the weights of each cell, one row at a time
+     */
+    static int[][] square(int n) {
+        int[][] weights = new int[n][n];
+        for(int i = 0; i < n; i++) {
+            for(int j = 0; j < n; j++) {
+                weights[i][j] = (i + j) % 3 + 1;
+            }
+        }
+        weights[0][0] = 1;
+        weights[n - 1][n - 1] = 1;
+        return weights;
+    }
+}
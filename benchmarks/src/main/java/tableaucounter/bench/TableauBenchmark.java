@@ -0,0 +1,34 @@
+package tableaucounter.bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import tableaucounter.*;
+
+/**
+ * Measures building a {@code Tableau} and its rules from a weight matrix.
+ * @author Benjamin Levandowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableauBenchmark {
+
+    @Param({"tableau-txt", "notes-3x3", "rect-3x4", "staircase-7654",
+            "nonrect-small", "square-10", "square-20", "square-40"})
+    public String shape;
+
+    private int[][] weights;
+
+    @Setup
+    public void setUp() {
+        weights = Shapes.weights(shape);
+    }
+
+    @Benchmark
+    public Tableau construct() {
+        return new Tableau(weights);
+    }
+}
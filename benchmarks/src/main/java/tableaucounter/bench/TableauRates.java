@@ -0,0 +1,26 @@
+package tableaucounter.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Extra counter reported by JMH as tableaux/sec next to the benchmark score,
+ * for benchmarks that do not see the search tree itself.
+ * @author Benjamin Levandowski
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class TableauRates {
+
+    /**
+     * Tableaux found during the iteration.
+     */
+    public long tableaux;
+
+    /**
+     * Clears the counter before each iteration.
+     */
+    @Setup(Level.Iteration)
+    public void clear() {
+        tableaux = 0L;
+    }
+}
@@ -0,0 +1,183 @@
+package tableaucounter;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Counts the tableaux of many shapes on one shared work-stealing pool.  Every
+ * shape is a task of its own, so small shapes are counted side by side while
+ * the search of a large one forks into subtrees that idle workers steal.
+ * Each result is printed as soon as its shape is done, so results arrive in
+ * the order the shapes finish rather than the order of the batch.
+ * @author Benjamin Levandowski
+ */
+public class BatchCounter {
+
+    private final int P;  //Parallelism
+    private final String ENGINE;
+    private final PrintStream OUT;
+    private boolean lookahead = true, symmetry = true;
+    private ResultCache cache = null;
+
+    /**
+     * Creates a batch counter.
+     * @param parallelism
+     * the number of worker threads shared by every shape
+     * @param engine
+     * "frontier" to count shapes by formula or by their frontiers, or
+     * "search" to search them
+     * @param out
+     * where the result of each shape is printed
+     */
+    public BatchCounter(int parallelism, String engine, PrintStream out) {
+        if(parallelism < 1)
+            throw new RejectedExecutionException("Parallelism must be at "
+                    + "least 1");
+        P = parallelism;
+        ENGINE = engine;
+        OUT = out;
+    }
+
+    /**
+     * Turns pruning by looking ahead on or off for searched shapes.
+     * @param lookahead
+     * true to prune entries that leave the rest of the tableau unfillable
+     * @see ForkJoinCounter#setLookahead(boolean)
+     */
+    public void setLookahead(boolean lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Turns searching only half of the tableaux of transposable shapes on or
+     * off.
+     * @param symmetry
+     * true to double the count of half of a transposable shape
+     * @see ForkJoinCounter#setSymmetry(boolean)
+     */
+    public void setSymmetry(boolean symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Looks every shape up in a result cache before counting it, and stores
+     * the counts of the shapes that were not there.
+     * @param cache
+     * the result cache, or null to not use one
+     */
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Counts the tableaux of every shape of a batch.
+     * @param batch
+     * the weights of each shape
+     * @return the number of tableaux of each shape, in the order of the
+     * batch, or -1 for shapes that could not be counted, whatever went wrong,
+     * or have too many tableaux for a long
+     */
+    public long[] count(List<int[][]> batch) {
+        long[] totals = new long[batch.size()];
+        ArrayList<ShapeTask> tasks = new ArrayList<>();
+        for(int i = 0; i < batch.size(); i++) {
+            tasks.add(new ShapeTask(i, batch.get(i), totals));
+        }
+        ForkJoinPool pool = new ForkJoinPool(P);
+        try {
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return totals;
+    }
+
+    private void report(String line) {
+        synchronized(OUT) {
+            OUT.println(line);
+            OUT.flush();
+        }
+    }
+
+    /**
+     * Counts the tableaux of one shape of the batch.
+     */
+    private final class ShapeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int index;
+        private final int[][] weights;
+        private final long[] totals;
+
+        ShapeTask(int index, int[][] weights, long[] totals) {
+            this.index = index;
+            this.weights = weights;
+            this.totals = totals;
+        }
+
+        @Override
+        protected void compute() {
+            long startTime = System.nanoTime();
+            String how;
+            try {
+                Tableau tableau = new Tableau(weights);
+                ResultCache.Result cached = cache == null ? null :
+                        cache.get(tableau);
+                if(cached != null && cached.getTotal() >= 0) {
+                    totals[index] = cached.getTotal();
+                    report("Shape " + (index + 1) + ": " + totals[index] +
+                            " tableaux, found in the result cache");
+                    return;
+                }
+                if("frontier".equals(ENGINE)) {
+                    BigInteger exact = ClosedForm.count(tableau);
+                    how = exact != null ? "counted by formula" :
+                            "counted by frontier";
+                    if(exact == null)
+                        exact = new FrontierCounter(tableau).countExact();
+                    if(exact.bitLength() >= 64) {
+                        totals[index] = -1L;
+                        report("Shape " + (index + 1) + ": " + exact +
+                                " tableaux, " + how + " in " +
+                                ((System.nanoTime() - startTime) / 1000000) +
+                                "ms");
+                        return;
+                    }
+                    totals[index] = exact.longValue();
+                } else {
+                    ForkJoinCounter counter = new ForkJoinCounter(tableau, P);
+                    counter.setLookahead(lookahead);
+                    counter.setSymmetry(symmetry);
+                    if(cached != null)
+                        counter.setKnownSubtrees(cached.getSubtrees());
+                    totals[index] = counter.countTask().invoke();
+                    how = "searched";
+                }
+                if(cache != null)
+                    cache.put(tableau, totals[index], Collections.emptyMap());
+            } catch(RejectedExecutionException | IOException e) {
+                totals[index] = -1L;
+                report("Shape " + (index + 1) + ": " + e.getMessage());
+                return;
+            } catch(RuntimeException e) {
+                //Any other failure of one shape must not stop the rest
+                totals[index] = -1L;
+                report("Shape " + (index + 1) + " could not be counted: " +
+                        e);
+                return;
+            }
+            report("Shape " + (index + 1) + ": " + totals[index] +
+                    " tableaux, " + how + " in " + ((System.nanoTime() -
+                    startTime) / 1000000) + "ms");
+        }
+    }
+}
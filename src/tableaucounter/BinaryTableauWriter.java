@@ -0,0 +1,146 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Writes tableaux in a compact binary format instead of text.  The file
+ * starts with a header holding the shape and weights, followed by one record
+ * for each tableau.  Tableaux are found in lexicographic order, so neighbours
+ * usually share a long prefix of entries; a record only stores how many
+ * leading entries are kept from the previous tableau and the entries after
+ * them.  Entries are one byte wide when they fit and two bytes otherwise.
+ * The file ends with a marker in place of a record, followed by the count.
+ * Use {@link TableauDecoder} to turn the file back into text.
+ * @author Benjamin Levandowski
+ */
+public final class BinaryTableauWriter implements TableauSink, Closeable {
+
+    /**
+     * The first four bytes of every binary tableau file, "TBLX".
+     */
+    public static final int MAGIC = 0x54424C58;
+    /**
+     * The version of the format written here.
+     */
+    public static final byte VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel CHANNEL;
+    private final ByteBuffer BUFFER;
+    private final int N, WIDTH;
+    private final int[] PREVIOUS;
+    private long count;
+
+    /**
+     * Opens a binary tableau file and writes its header.
+     * @param file
+     * the file to write, which is replaced if it exists
+     * @param tableau
+     * the shape of every tableau written to the file
+     * @throws IOException
+     * if the file cannot be written
+     */
+    public BinaryTableauWriter(Path file, Tableau tableau) throws IOException {
+        N = tableau.getN();
+        WIDTH = N + 1 < 0xFF ? 1 : 2;
+        if(N + 1 >= 0xFFFF)
+            throw new IOException("Tableaux with " + N + " entries are too "
+                    + "large for the binary format");
+        PREVIOUS = new int[N];
+        CHANNEL = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        BUFFER = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        int[] shape = tableau.getShape(), weights = tableau.getWeights();
+        BUFFER.putInt(MAGIC).put(VERSION).putInt(shape.length);
+        for(int length : shape) {
+            BUFFER.putInt(length);
+        }
+        for(int weight : weights) {
+            ensure(4);
+            BUFFER.putInt(weight);
+        }
+        BUFFER.putInt(N).put((byte) WIDTH);
+    }
+
+    /**
+     * Appends one tableau.
+     * @param entries
+     * the entries of the tableau, which are not kept
+     * @throws IOException
+     * if the file cannot be written
+     */
+    public void write(int[] entries) throws IOException {
+        int keep = 0;
+        if(count > 0) {
+            while(keep < N && entries[keep] == PREVIOUS[keep]) {
+                keep++;
+            }
+        }
+        ensure((N - keep + 1) * WIDTH);
+        put(keep);
+        for(int i = keep; i < N; i++) {
+            put(entries[i]);
+            PREVIOUS[i] = entries[i];
+        }
+        count++;
+    }
+
+    /**
+     * Appends one tableau, the same as {@link #write(int[])}.
+     * @param entries
+     * the entries of the tableau, which are not kept
+     * @throws IOException
+     * if the file cannot be written
+     */
+    @Override
+    public void accept(int[] entries) throws IOException {
+        write(entries);
+    }
+
+    /**
+     * Returns the number of tableaux written so far.
+     * @return the number of tableaux
+     */
+    public long getCount() {return count;}
+
+    /**
+     * Writes the end marker and the count, then closes the file.
+     * @throws IOException
+     * if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            ensure(WIDTH + 8);
+            put(WIDTH == 1 ? 0xFF : 0xFFFF);
+            BUFFER.putLong(count);
+            drain();
+        } finally {
+            CHANNEL.close();
+        }
+    }
+
+    private void put(int value) {
+        if(WIDTH == 1)
+            BUFFER.put((byte) value);
+        else
+            BUFFER.putShort((short) value);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if(BUFFER.remaining() < bytes)
+            drain();
+    }
+
+    private void drain() throws IOException {
+        BUFFER.flip();
+        while(BUFFER.hasRemaining()) {
+            CHANNEL.write(BUFFER);
+        }
+        BUFFER.clear();
+    }
+}
@@ -0,0 +1,237 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Remembers how far a search has come so a stopped run can pick up where it
+ * left off.  Subtrees are named by the prefix of entries they start with.
+ * Finished subtrees keep their count, and subtrees still being searched keep
+ * the last tableau they reached and how many they had counted by then.
+ * @author Benjamin Levandowski
+ */
+public final class Checkpoint {
+
+    private final Path FILE;
+    private final String SHAPE;
+    private final ConcurrentHashMap<String, Long> DONE =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Progress> WORK =
+            new ConcurrentHashMap<>();
+    private final Set<String> ABOVE = new HashSet<>();  //Loaded ancestors
+
+    /**
+     * Creates an empty checkpoint for a tableau.
+     * @param file
+     * where the checkpoint is written
+     * @param tableau
+     * the tableau being searched
+     */
+    public Checkpoint(Path file, Tableau tableau) {
+        this.FILE = file;
+        this.SHAPE = tableau.describe();
+    }
+
+    /**
+     * Reads the checkpoint a previous run left behind.
+     * @param file
+     * where the checkpoint was written
+     * @param tableau
+     * the tableau being searched
+     * @return the loaded checkpoint, which keeps writing to the same file
+     * @throws IOException
+     * if the checkpoint cannot be read
+     * @throws RejectedExecutionException
+     * if the checkpoint was written for a different tableau
+     */
+    public static Checkpoint load(Path file, Tableau tableau) throws
+            IOException {
+        Checkpoint checkpoint = new Checkpoint(file, tableau);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if(lines.isEmpty() || !lines.get(0).equals("shape " +
+                checkpoint.SHAPE))
+            throw new RejectedExecutionException(file + " was written for a "
+                    + "different tableau");
+        for(String line : lines.subList(1, lines.size())) {
+            String[] parts = line.split(" ", -1);
+            String key = parts[2];
+            if("done".equals(parts[0]))
+                checkpoint.DONE.put(key, Long.parseLong(parts[1]));
+            else if("work".equals(parts[0]))
+                checkpoint.WORK.put(key, new Progress(
+                        Long.parseLong(parts[1]), parse(parts[3])));
+            else
+                throw new RejectedExecutionException("Unknown checkpoint "
+                        + "line: " + line);
+            if(key.isEmpty())
+                continue;
+            checkpoint.ABOVE.add("");
+            for(int i = key.indexOf(','); i < key.length() - 1;
+                    i = key.indexOf(',', i + 1)) {
+                checkpoint.ABOVE.add(key.substring(0, i + 1));
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Returns the count of a finished subtree.
+     * @param prefix
+     * the entries every tableau of the subtree starts with
+     * @return the count, or -1 if the subtree has not been finished
+     */
+    public long getDone(int[] prefix) {
+        Long count = DONE.get(key(prefix));
+        return count == null ? -1L : count;
+    }
+
+    /**
+     * Returns true if the loaded checkpoint recorded some smaller subtree
+     * below this one.  Such a subtree has to be split again, or the recorded
+     * work would be lost.
+     * @param prefix
+     * the entries every tableau of the subtree starts with
+     * @return true if a longer prefix was recorded
+     */
+    public boolean hasRecordsBelow(int[] prefix) {
+        return ABOVE.contains(key(prefix));
+    }
+
+    /**
+     * Returns how far a subtree had been searched.
+     * @param prefix
+     * the entries every tableau of the subtree starts with
+     * @return the saved progress, or null if there is none
+     */
+    public Progress getProgress(int[] prefix) {
+        return WORK.get(key(prefix));
+    }
+
+    /**
+     * Records how far a subtree has been searched.  This copies the entries.
+     * @param prefix
+     * the entries every tableau of the subtree starts with
+     * @param entries
+     * the last complete tableau the search reached
+     * @param count
+     * the number of tableaux of the subtree counted so far, including the
+     * last one reached
+     */
+    public void progress(int[] prefix, int[] entries, long count) {
+        WORK.put(key(prefix), new Progress(count, entries.clone()));
+    }
+
+    /**
+     * Records that a subtree is finished.
+     * @param prefix
+     * the entries every tableau of the subtree starts with
+     * @param count
+     * the number of tableaux of the subtree
+     */
+    public void finish(int[] prefix, long count) {
+        String key = key(prefix);
+        DONE.put(key, count);
+        WORK.remove(key);
+    }
+
+    /**
+     * Records that a subtree that was split up is finished.  The records of
+     * the smaller subtrees inside of it are dropped, since they are no longer
+     * needed.
+     * @param prefix
+     * the entries every tableau of the subtree starts with
+     * @param count
+     * the number of tableaux of the subtree
+     */
+    public void merge(int[] prefix, long count) {
+        String key = key(prefix);
+        finish(prefix, count);
+        DONE.keySet().removeIf(k -> k.length() > key.length() &&
+                k.startsWith(key));
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file and moves it over the old
+     * one, so a crash never leaves half a checkpoint behind.
+     * @throws IOException
+     * if the checkpoint cannot be written
+     */
+    public synchronized void write() throws IOException {
+        Path temp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            writer.write("shape " + SHAPE + "\n");
+            for(Map.Entry<String, Long> e : DONE.entrySet()) {
+                writer.write("done " + e.getValue() + " " + e.getKey() + "\n");
+            }
+            for(Map.Entry<String, Progress> e : WORK.entrySet()) {
+                writer.write("work " + e.getValue().COUNT + " " + e.getKey() +
+                        " " + key(e.getValue().ENTRIES) + "\n");
+            }
+        }
+        Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes the checkpoint file once the search it describes is finished.
+     * @throws IOException
+     * if the file cannot be removed
+     */
+    public synchronized void delete() throws IOException {
+        Files.deleteIfExists(FILE);
+    }
+
+    /**
+     * Names a subtree by the prefix its tableaux start with.
+     * @param entries
+     * the prefix
+     * @return every entry of the prefix followed by a comma, like "3,5,"
+     */
+    static String key(int[] entries) {
+        StringBuilder s = new StringBuilder();
+        for(int e : entries) {
+            s.append(e).append(',');
+        }
+        return s.toString();
+    }
+
+    private static int[] parse(String key) {
+        if(key.isEmpty())
+            return new int[0];
+        String[] values = key.split(",");
+        int[] entries = new int[values.length];
+        for(int i = 0; i < entries.length; i++) {
+            entries[i] = Integer.parseInt(values[i]);
+        }
+        return entries;
+    }
+
+    /**
+     * How far the search of one subtree had come.
+     */
+    public static final class Progress {
+
+        private final long COUNT;
+        private final int[] ENTRIES;
+
+        private Progress(long count, int[] entries) {
+            this.COUNT = count;
+            this.ENTRIES = entries;
+        }
+
+        /**
+         * Returns the number of tableaux counted so far.
+         * @return the partial count, including the last tableau reached
+         */
+        public long getCount() {return COUNT;}
+
+        /**
+         * Returns the last complete tableau the search reached.
+         * @return the entries of that tableau
+         */
+        public int[] getEntries() {return ENTRIES;}
+    }
+}
@@ -0,0 +1,135 @@
+package tableaucounter;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+/**
+ * Counts the shapes that have a formula instead of a search.  When every
+ * weight is 1 the tableaux are standard Young tableaux, which the hook length
+ * formula counts exactly: n! divided by the product of the hook lengths of
+ * the n cells.  A single row or column, whatever its weights, can only be
+ * filled one way.  Every other weighting is set-valued and has to be counted.
+ * @author Benjamin Levandowski
+ */
+public final class ClosedForm {
+
+    private ClosedForm() {}
+
+    /**
+     * Counts the tableaux of a shape by formula, if it has one.
+     * @param tableau
+     * the shape to be counted
+     * @return the number of tableaux, or null if the shape has no formula
+     */
+    public static BigInteger count(Tableau tableau) {
+        int[] shape = tableau.getShape();
+        if(shape.length == 1 || shape[0] == 1)
+            return BigInteger.ONE;
+        for(int weight : tableau.getWeights()) {
+            if(weight != 1)
+                return null;
+        }
+        return hookLength(shape);
+    }
+
+    /**
+     * Counts the standard Young tableaux of a shape with the hook length
+     * formula.
+     * @param shape
+     * the length of each row, in non-increasing order
+     * @return the number of standard Young tableaux of the shape
+     */
+    public static BigInteger hookLength(int[] shape) {
+        //The hook of a cell is itself, the cells right of it and below it
+        BigInteger cells = BigInteger.ONE, hooks = BigInteger.ONE;
+        int n = 0;
+        for(int i = 0; i < shape.length; i++) {
+            for(int j = 0; j < shape[i]; j++) {
+                int below = 0;
+                while(i + below + 1 < shape.length &&
+                        shape[i + below + 1] > j) {
+                    below++;
+                }
+                cells = cells.multiply(BigInteger.valueOf(++n));
+                hooks = hooks.multiply(BigInteger.valueOf(
+                        shape[i] - j + below));
+            }
+        }
+        return cells.divide(hooks);
+    }
+
+    /**
+     * Checks the formulas against {@link Counter#count(BufferedWriter)} on
+     * every shape of up to a given number of cells with every weight 1, which
+     * checks the hook length formula, and on every single row and column with
+     * a weight of 2, whose one filling is the only other formula.  Other
+     * shapes with a weight of 2 have no formula and are skipped, so they are
+     * not counted among the shapes checked.
+     * @param cells
+     * the largest number of cells in a checked shape
+     * @param out
+     * where each mismatch and the final tally are printed
+     * @return true if every formula agreed with the search
+     * @throws IOException
+     * never, since the searched tableaux are thrown away
+     */
+    public static boolean verify(int cells, PrintStream out) throws
+            IOException {
+        int checked = 0, failed = 0;
+        for(int n = 3; n <= cells; n++) {
+            for(int[] shape : partitions(n, n)) {
+                for(int weighted = 0; weighted < 2; weighted++) {
+                    int[][] weights = new int[shape.length][];
+                    for(int i = 0; i < shape.length; i++) {
+                        weights[i] = new int[shape[i]];
+                        Arrays.fill(weights[i], 1);
+                    }
+                    //A weight of 2 in the second cell, which is never fixed,
+                    //only has a formula in a single row or column
+                    if(weighted == 1 && shape[0] > 1)
+                        weights[0][1] = 2;
+                    else if(weighted == 1)
+                        weights[1][0] = 2;
+                    Tableau tableau = new Tableau(weights);
+                    BigInteger formula = count(tableau);
+                    if(formula == null)
+                        continue;
+                    long searched;
+                    try (BufferedWriter writer = new BufferedWriter(
+                            new StringWriter())) {
+                        searched = new Counter(tableau).count(writer);
+                    }
+                    checked++;
+                    if(formula.longValue() != searched) {
+                        failed++;
+                        out.println(tableau.describe() + ": the formula "
+                                + "gives " + formula + " but the search found "
+                                + searched);
+                    }
+                }
+            }
+        }
+        out.println(checked + " shapes were checked and " + failed +
+                " disagreed.");
+        return failed == 0;
+    }
+
+    //Every partition of n into parts of at most max, largest part first
+    static List<int[]> partitions(int n, int max) {
+        ArrayList<int[]> partitions = new ArrayList<>();
+        if(n == 0) {
+            partitions.add(new int[0]);
+            return partitions;
+        }
+        for(int first = Math.min(n, max); first >= 1; first--) {
+            for(int[] rest : partitions(n - first, first)) {
+                int[] partition = new int[rest.length + 1];
+                partition[0] = first;
+                System.arraycopy(rest, 0, partition, 1, rest.length);
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,71 @@
+package tableaucounter;
+
+/**
+ * The rules of a tableau flattened for the search engines.  Instead of a
+ * pair of entries for every rule, each entry keeps only the other end of its
+ * rules in one flat array, and {@link #getOffsets()} tells where the rules of
+ * each entry start.  When the other entry must be smaller it is stored as is;
+ * when it must be larger it is stored as its bitwise complement, which is
+ * always negative.
+ * @author Benjamin Levandowski
+ */
+public final class CompiledRules {
+
+    private final int[] OFFSETS, OTHERS, MAXIMA;
+
+    /**
+     * Compiles rules sorted by entry.
+     * @param rules
+     * the rules sorted by entry, as returned by
+     * {@link Tableau#getSortedRules()}
+     */
+    public CompiledRules(int[][][] rules) {
+        int n = rules.length;
+        OFFSETS = new int[n + 1];
+        MAXIMA = new int[n];
+        for(int i = 0; i < n; i++) {
+            OFFSETS[i + 1] = OFFSETS[i] + rules[i].length - 1;
+            MAXIMA[i] = rules[i][0][0];
+        }
+        OTHERS = new int[OFFSETS[n]];
+        for(int i = 0; i < n; i++) {
+            int h = OFFSETS[i];
+            //Smaller entries first, so engines can stop at the first larger
+            for(int j = 1; j < rules[i].length; j++) {
+                if(rules[i][j][1] == i)
+                    OTHERS[h++] = rules[i][j][0];
+            }
+            for(int j = 1; j < rules[i].length; j++) {
+                if(rules[i][j][1] != i)
+                    OTHERS[h++] = ~rules[i][j][1];
+            }
+        }
+    }
+
+    /**
+     * Returns where the rules of each entry start in {@link #getOthers()}.
+     * The rules of entry i run up to, but not including, offset i + 1.
+     * @return the offsets, one longer than the number of entries
+     */
+    public int[] getOffsets() {return OFFSETS;}
+
+    /**
+     * Returns the other entry of every rule.  An entry that must be smaller
+     * is stored as is, and an entry that must be larger is stored as its
+     * bitwise complement.  Within each entry the smaller ones come first.
+     * @return the other end of every rule
+     */
+    public int[] getOthers() {return OTHERS;}
+
+    /**
+     * Returns the largest value each entry may take.
+     * @return the maximum of each entry
+     */
+    public int[] getMaxima() {return MAXIMA;}
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries
+     */
+    public int getN() {return MAXIMA.length;}
+}
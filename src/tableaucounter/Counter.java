@@ -1,7 +1,7 @@
 package tableaucounter;
 
 import java.io.*;
-import java.util.*;
+import java.util.stream.*;
 
 /**
  * Counts and writes tableaux of a given shape.
@@ -31,72 +31,101 @@ public class Counter {
      * @throws IOException
      * if the output file is write protected or there are other issues
      */
-    public int count(BufferedWriter writer) throws IOException {
-        int w = N - 2;  //w, for working index, ranges from 0 to N - 1
-        int x = 0;
-        int[] entries = new int[N];
-        ArrayList<Integer> options = new ArrayList<>(N);
-        int count = 1;
-        for(int i = 0; i < N; i++) {
-            entries[i] = i + 2;
-        }
-        writer.write(TABLEAU.print(entries) + "\n");
+    public long count(BufferedWriter writer) throws IOException {
+        return count(new TextSink(TABLEAU, writer));
+    }
 
-        while(w >= 0 && entries[0] < N + 2) {
-            //1. Clear everything below w
-            entries = clear(w + 1, entries, options);
-            //2. Sort options
-            options.sort(null);
-            //3. If we cannot increases e[w], decrease w
-            if(options.isEmpty() || options.get(options.size() - 1) <
-                    entries[w]) {
-                w--;
-                continue;
-            }
-            //4. increase e[w]
-            for(int i = 0; i < options.size(); i++) {
-                x = i;
-                if(entries[w] < options.get(i)) {
-                    break;
-                }
-            }
-            if(entries[w] > 0)
-                options.add(entries[w]);
-            entries[w] = options.remove(x);
-            //5. Validate.  Increment entries[w] if possible
-            if(!valid(entries, w)) {
-                continue;
-            }
-            //6. Fill the table.  Happens in step 3
-            if(w < N - 1) w++;
-            //7. Check for valid Tableau
-            if(entries[N - 1] > 0 && valid(entries, w)) {
-                count++;
-                writer.write(TABLEAU.print(entries) + "\n");
-            }
+    /**
+     * Hands every tableau to a sink, in the same order as
+     * {@link #count(BufferedWriter)} writes them.  The sink gets the live
+     * entries of the search, so nothing is copied or formatted unless the
+     * sink does it.
+     * @param sink
+     * what receives each tableau
+     * @return the number of tableaux of this particular shape
+     * @throws IOException
+     * if the sink cannot take a tableau
+     */
+    public long count(TableauSink sink) throws IOException {
+        SearchState search = new SearchState(TABLEAU);
+        long count = 0L;
+        while(search.next(N)) {
+            count++;
+            sink.accept(search.getEntries(), search.getChanged());
         }
         return count;
     }
 
-    private boolean valid(int[] entries, int w) {
-        final int[][][] RULES = TABLEAU.getSortedRules();
-        if(entries[w] > RULES[w][0][0])
-            return false;
-        for(int i = 1; i < RULES[w].length; i++) {
-            if(entries[RULES[w][i][0]] < 0 || entries[RULES[w][i][1]] < 0)
-                continue;
-            if(entries[RULES[w][i][0]] > entries[RULES[w][i][1]])
-                return false;
-        }
-        return true;
+    /**
+     * Streams every tableau in the same order as
+     * {@link #count(BufferedWriter)} writes them.  A parallel stream splits
+     * the search tree between its threads.  Each thread reuses one array for
+     * the tableaux it finds, so map them to copies before collecting them.
+     * @return the entries of every tableau of this shape
+     */
+    public Stream<int[]> stream() {
+        return StreamSupport.stream(new TableauSpliterator(TABLEAU), false);
     }
 
-    private int[] clear(int s, int[] entries, ArrayList<Integer> options) {
-        for(int i = s; i < N; i++) {
-            if(entries[i] > 0)
-                options.add(entries[i]);
-            entries[i] = -1;
+    /**
+     * Writes only the tableaux with indices in a given range, in the same
+     * order as {@link #count(BufferedWriter)}.  The first one is found by
+     * {@link Ranker#unrank(long)} instead of enumerating those before it, so
+     * separate writers can each take a range without talking to each other.
+     * @param writer
+     * address of the output file writer
+     * @param from
+     * the index of the first tableau to write
+     * @param to
+     * one past the index of the last tableau to write
+     * @return the number of tableaux written
+     * @throws IOException
+     * if the output file is write protected or there are other issues
+     */
+    public long count(BufferedWriter writer, long from, long to) throws
+            IOException {
+        return count(new TextSink(TABLEAU, writer), from, to);
+    }
+
+    /**
+     * Hands only the tableaux with indices in a given range to a sink, in
+     * the same order as {@link #count(TableauSink)}.
+     * @param sink
+     * what receives each tableau
+     * @param from
+     * the index of the first tableau
+     * @param to
+     * one past the index of the last tableau
+     * @return the number of tableaux handed over
+     * @throws IOException
+     * if the sink cannot take a tableau
+     */
+    public long count(TableauSink sink, long from, long to) throws
+            IOException {
+        if(from >= to)
+            return 0L;
+        SearchState search = new SearchState(TABLEAU);
+        search.reset(new Ranker(TABLEAU).unrank(from), N);
+        search.rebase(0);
+        long count = 1L;
+        sink.accept(search.getEntries());
+        while(count < to - from && search.next(N)) {
+            count++;
+            sink.accept(search.getEntries(), search.getChanged());
         }
-        return entries;
+        return count;
+    }
+
+    /**
+     * Counts tableaux the same way as {@link #count(BufferedWriter)}, but
+     * writes them in the binary format.
+     * @param writer
+     * the binary tableau file writer
+     * @return the number of tableaux of this particular shape
+     * @throws IOException
+     * if the output file is write protected or there are other issues
+     */
+    public long count(BinaryTableauWriter writer) throws IOException {
+        return count((TableauSink) writer);
     }
 }
\ No newline at end of file
@@ -0,0 +1,413 @@
+package tableaucounter;
+
+import java.io.*;
+import java.math.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Counts the tableaux of shapes sent to it for as long as it runs, so a JVM
+ * that has already loaded and compiled the counters answers every request
+ * instead of a fresh one per shape.  Requests are read one per line, from
+ * standard input or from connections to a local port, and each holds the
+ * weights of a shape as parsed by {@link TableauInput#parseWeights(String)},
+ * optionally after "search" or "frontier" to pick the engine for that shape.
+ * A line "stats" asks for the latency percentiles of the jobs finished so far,
+ * and "quit" ends the connection once its jobs are done.
+ * <p>
+ * Jobs run on a fixed set of threads that are all started up front, so a
+ * burst of short jobs never waits for threads to be created.  Every
+ * connection queues its own jobs, and the threads take one job from each
+ * connection with jobs waiting in turn, so a client that sends a burst of
+ * long jobs cannot hold up the jobs of every other client.  Within a
+ * connection, jobs are started in the order they were sent.  Searches fork
+ * into a work-stealing pool shared by every job.
+ * Each reply is a line of JSON written as soon as its job is done, so
+ * replies arrive in the order jobs finish, and carry the number the job was
+ * given on its connection, counting from 1.
+ * @author Benjamin Levandowski
+ */
+public class CountingServer implements Closeable {
+
+    /**
+     * The number of most recent jobs whose latencies are kept for the
+     * percentiles.
+     */
+    private static final int LATENCY_WINDOW = 1 << 14;
+    /**
+     * The number of times each engine counts the warm up shape, which is
+     * about how often the hot loops must run before they are compiled.
+     */
+    private static final int WARM_UP_ROUNDS = 30;
+    /**
+     * A shape whose search and frontier count take a few milliseconds.
+     */
+    private static final int[][] WARM_UP_SHAPE = {{1, 2, 2}, {2, 2, 2},
+            {2, 2, 1}};
+
+    private final int P;  //Parallelism
+    private final String ENGINE;
+    private final Thread[] WORKERS;
+    //Connections with queued jobs, each once, in the order they are served
+    private final ArrayDeque<Connection> READY = new ArrayDeque<>();
+    private final ForkJoinPool SEARCH_POOL;
+    private final long[] LATENCIES = new long[LATENCY_WINDOW];  //Nanoseconds
+    private long jobs = 0L;
+    private boolean closed = false;
+    private boolean lookahead = true, symmetry = true;
+    private ResultCache cache = null;
+
+    /**
+     * Creates a server and starts its worker threads.
+     * @param parallelism
+     * the number of jobs counted at once, and of worker threads searching
+     * @param engine
+     * "frontier" to count shapes by formula or by their frontiers, or
+     * "search" to search them, unless a request picks the engine itself
+     * @throws RejectedExecutionException
+     * if the parallelism is less than 1
+     */
+    public CountingServer(int parallelism, String engine) {
+        if(parallelism < 1)
+            throw new RejectedExecutionException("Parallelism must be at "
+                    + "least 1");
+        P = parallelism;
+        ENGINE = engine;
+        SEARCH_POOL = new ForkJoinPool(P);
+        WORKERS = new Thread[P];
+        for(int i = 0; i < P; i++) {
+            WORKERS[i] = new Thread(this::work, "job-" + i);
+            WORKERS[i].setDaemon(true);
+            WORKERS[i].start();
+        }
+    }
+
+    /**
+     * Turns pruning by looking ahead on or off for searched shapes.
+     * @param lookahead
+     * true to prune entries that leave the rest of the tableau unfillable
+     * @see ForkJoinCounter#setLookahead(boolean)
+     */
+    public void setLookahead(boolean lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Turns searching only half of the tableaux of transposable shapes on or
+     * off.
+     * @param symmetry
+     * true to double the count of half of a transposable shape
+     * @see ForkJoinCounter#setSymmetry(boolean)
+     */
+    public void setSymmetry(boolean symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Looks every shape up in a result cache before counting it, and stores
+     * the counts of the shapes that were not there.
+     * @param cache
+     * the result cache, or null to not use one
+     */
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Counts a small shape with every engine until their hot loops have been
+     * compiled, and starts every worker thread of the search pool, so the
+     * first requests run as fast as later ones.  The warm up is not counted
+     * in the latencies.
+     */
+    public void warmUp() {
+        Tableau tableau = new Tableau(WARM_UP_SHAPE);
+        for(int round = 0; round < WARM_UP_ROUNDS; round++) {
+            new FrontierCounter(tableau).countExact();
+            ForkJoinCounter counter = new ForkJoinCounter(tableau, P);
+            counter.setSymmetry(false);
+            SEARCH_POOL.invoke(counter.countTask());
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until it ends or sends "quit",
+     * then waits for the replies of its jobs to be written.
+     * @param in
+     * where the requests are read
+     * @param out
+     * where the replies are written
+     * @throws IOException
+     * if the requests cannot be read
+     */
+    public void serve(BufferedReader in, Writer out) throws IOException {
+        Connection connection = new Connection();
+        int job = 0;
+        String line;
+        while((line = in.readLine()) != null) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#"))
+                continue;
+            if("quit".equals(line))
+                break;
+            if("stats".equals(line)) {
+                reply(out, stats());
+                continue;
+            }
+            submit(connection, new Job(connection, ++job, line, out,
+                    System.nanoTime()));
+        }
+        //Every job replies, even with an error, and then counts as done
+        synchronized(connection) {
+            while(connection.outstanding > 0) {
+                try {
+                    connection.wait();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts connections to a port of this machine until the server is
+     * closed, and answers each of them on a thread of its own.
+     * @param port
+     * the port to listen on
+     * @throws IOException
+     * if the port cannot be listened on
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 0,
+                InetAddress.getLoopbackAddress())) {
+            while(!isClosed()) {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> {
+                    try (Socket s = socket;
+                            BufferedReader in = new BufferedReader(
+                                    new InputStreamReader(s.getInputStream(),
+                                    StandardCharsets.UTF_8));
+                            Writer out = new BufferedWriter(
+                                    new OutputStreamWriter(s.getOutputStream(),
+                                    StandardCharsets.UTF_8))) {
+                        serve(in, out);
+                    } catch(IOException e) {
+                        //The client went away, and its jobs still finish
+                    }
+                }, "connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    /**
+     * Returns the latency percentiles of the most recent jobs, from reading
+     * their request to writing their reply, as a line of JSON.
+     * @return the number of jobs and the 50th, 90th and 99th percentile and
+     * largest latency in milliseconds
+     */
+    public String stats() {
+        long[] latencies;
+        long done;
+        synchronized(LATENCIES) {
+            done = jobs;
+            latencies = Arrays.copyOf(LATENCIES, (int) Math.min(jobs,
+                    LATENCY_WINDOW));
+        }
+        Arrays.sort(latencies);
+        return "{\"jobs\":" + done + ",\"p50Ms\":" + percentile(latencies, 50)
+                + ",\"p90Ms\":" + percentile(latencies, 90) + ",\"p99Ms\":" +
+                percentile(latencies, 99) + ",\"maxMs\":" +
+                percentile(latencies, 100) + "}";
+    }
+
+    /**
+     * Stops taking jobs and stops the worker threads once the jobs already
+     * taken are done.
+     */
+    @Override
+    public void close() {
+        synchronized(READY) {
+            closed = true;
+            READY.notifyAll();
+        }
+        SEARCH_POOL.shutdown();
+    }
+
+    private boolean isClosed() {
+        synchronized(READY) {
+            return closed;
+        }
+    }
+
+    private void submit(Connection connection, Job job) {
+        synchronized(READY) {
+            if(closed)
+                throw new RejectedExecutionException("The server is closed");
+            synchronized(connection) {
+                connection.outstanding++;
+            }
+            if(connection.queue.isEmpty())
+                READY.add(connection);
+            connection.queue.add(job);
+            READY.notify();
+        }
+    }
+
+    //Takes a job from the connection whose turn it is, then puts the
+    //connection at the back of the line if it has more
+    private void work() {
+        while(true) {
+            Job job;
+            synchronized(READY) {
+                while(READY.isEmpty() && !closed) {
+                    try {
+                        READY.wait();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                }
+                Connection next = READY.poll();
+                if(next == null)
+                    return;
+                job = next.queue.poll();
+                if(!next.queue.isEmpty())
+                    READY.add(next);
+            }
+            job.run();
+        }
+    }
+
+    private void record(long nanos) {
+        synchronized(LATENCIES) {
+            LATENCIES[(int) (jobs++ % LATENCY_WINDOW)] = nanos;
+        }
+    }
+
+    //The nearest rank percentile, in milliseconds with microseconds
+    private static String percentile(long[] sorted, int percent) {
+        if(sorted.length == 0)
+            return "0";
+        int rank = Math.max(1, (sorted.length * percent + 99) / 100);
+        return String.format(Locale.ROOT, "%.3f", sorted[rank - 1] / 1e6);
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        synchronized(out) {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    private static String quote(String text) {
+        return "\"" + String.valueOf(text).replace("\\", "\\\\")
+                .replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * The jobs of one connection that have not finished yet.
+     */
+    private static final class Connection {
+
+        //Guarded by READY, started in order
+        private final ArrayDeque<Job> queue = new ArrayDeque<>();
+        private int outstanding = 0;  //Guarded by the connection
+    }
+
+    /**
+     * Counts the tableaux of the shape of one request.
+     */
+    private final class Job implements Runnable {
+
+        private final Connection connection;
+        private final int number;
+        private final String request;
+        private final Writer out;
+        private final long received;
+        private String how;
+
+        Job(Connection connection, int number, String request, Writer out,
+                long received) {
+            this.connection = connection;
+            this.number = number;
+            this.request = request;
+            this.out = out;
+            this.received = received;
+        }
+
+        @Override
+        public void run() {
+            String line;
+            try {
+                long startTime = System.nanoTime();
+                String engine = ENGINE, weights = request;
+                int space = request.indexOf(' ');
+                if(space > 0 && ("search".equals(request.substring(0, space))
+                        || "frontier".equals(request.substring(0, space)))) {
+                    engine = request.substring(0, space);
+                    weights = request.substring(space + 1);
+                }
+                BigInteger total = count(new Tableau(
+                        TableauInput.parseWeights(weights)), engine);
+                long endTime = System.nanoTime();
+                line = "{\"job\":" + number + ",\"tableaux\":" + total +
+                        ",\"by\":" + quote(how) + ",\"waitMs\":" +
+                        (startTime - received) / 1000000 + ",\"ms\":" +
+                        (endTime - received) / 1000000 + "}";
+            } catch(RuntimeException | IOException | Error e) {
+                //Whatever went wrong, even running out of stack or memory on
+                //a large shape, the client gets a reply for the job
+                line = "{\"job\":" + number + ",\"error\":" +
+                        quote(e.getMessage() != null ? e.getMessage() :
+                        e.toString()) + "}";
+            }
+            record(System.nanoTime() - received);
+            try {
+                reply(out, line);
+            } catch(IOException e) {
+                //The client went away
+            } finally {
+                synchronized(connection) {
+                    connection.outstanding--;
+                    connection.notifyAll();
+                }
+            }
+        }
+
+        //Counts the shape, noting how it was counted
+        private BigInteger count(Tableau tableau, String engine) throws
+                IOException {
+            ResultCache.Result found = cache == null ? null :
+                    cache.get(tableau);
+            if(found != null && found.getTotal() >= 0) {
+                how = "cache";
+                return BigInteger.valueOf(found.getTotal());
+            }
+            BigInteger total;
+            if("frontier".equals(engine)) {
+                how = "formula";
+                total = ClosedForm.count(tableau);
+                if(total != null)
+                    return total;
+                how = engine;
+                total = new FrontierCounter(tableau).countExact();
+            } else {
+                how = engine;
+                ForkJoinCounter counter = new ForkJoinCounter(tableau, P);
+                counter.setLookahead(lookahead);
+                counter.setSymmetry(symmetry);
+                if(found != null)
+                    counter.setKnownSubtrees(found.getSubtrees());
+                total = BigInteger.valueOf(SEARCH_POOL.invoke(
+                        counter.countTask()));
+            }
+            if(cache != null && total.bitLength() < 64)
+                cache.put(tableau, total.longValue(), Collections.emptyMap());
+            return total;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package tableaucounter;
+
+/**
+ * Only counts the tableaux it receives.
+ * @author Benjamin Levandowski
+ */
+public final class CountingSink implements TableauSink {
+
+    private long count;
+
+    @Override
+    public void accept(int[] entries) {
+        count++;
+    }
+
+    /**
+     * Returns the number of tableaux received so far.
+     * @return the number of tableaux
+     */
+    public long getCount() {return count;}
+}
@@ -0,0 +1,437 @@
+package tableaucounter;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Counts tableaux of a given shape on a work-stealing pool.  Instead of one
+ * thread for each pair of first two entries, the search tree is split
+ * recursively at whatever depth still has large subtrees, so idle workers can
+ * steal branches from busy ones.
+ * @author Benjamin Levandowski
+ */
+public class ForkJoinCounter {
+
+    /**
+     * Subtrees with fewer remaining entries than this are always searched
+     * sequentially, since forking them costs more than it saves.
+     */
+    private static final int SEQUENTIAL_DEPTH = 6;
+    /**
+     * A task only splits while its worker has fewer queued tasks than this.
+     */
+    private static final int SURPLUS_LIMIT = 2;
+    /**
+     * A sequential subtree reports its position to the checkpoint every time
+     * it counts this many more tableaux, when masked as below.
+     */
+    private static final long PROGRESS_MASK = (1L << 16) - 1;
+    /**
+     * A sequential subtree adds its counts to the metrics every time it
+     * counts this many more tableaux, when masked as below.
+     */
+    private static final long DRAIN_MASK = (1L << 12) - 1;
+    /**
+     * The number of probes used to estimate each work unit.
+     */
+    private static final long UNIT_PROBES = 256;
+    /**
+     * Subtrees with prefixes up to this long are always split, and their
+     * counts are remembered.
+     */
+    private static final int RECORDED_DEPTH = 2;
+
+    private final Tableau TABLEAU;
+    private final int N, P;  //Number, parallelism
+    private final Checkpoint CHECKPOINT;
+    private final long INTERVAL;
+    private final SearchMetrics METRICS;
+    private final ConcurrentHashMap<String, Long> SUBTREES =
+            new ConcurrentHashMap<>();
+    private Map<String, Long> known = Collections.emptyMap();
+    private boolean lookahead = true, symmetry = true;
+    private int units = 0;
+    private long progress = 0L;
+    private SubtreeSink sink = null;
+
+    /**
+     * Creates a counter for a given tableau shape.
+     * @param tableau
+     * the shape of the tableau to count
+     * @param parallelism
+     * the number of worker threads used to search for tableaux
+     */
+    public ForkJoinCounter(Tableau tableau, int parallelism) {
+        this(tableau, parallelism, null, 0L);
+    }
+
+    /**
+     * Creates a counter for a given tableau shape that periodically saves its
+     * progress, and skips whatever the checkpoint says is already done.
+     * @param tableau
+     * the shape of the tableau to count
+     * @param parallelism
+     * the number of worker threads used to search for tableaux
+     * @param checkpoint
+     * where progress is recorded, or null to not record it
+     * @param interval
+     * the number of seconds between writing checkpoints
+     */
+    public ForkJoinCounter(Tableau tableau, int parallelism,
+            Checkpoint checkpoint, long interval) {
+        if(parallelism < 1)
+            throw new RejectedExecutionException("Parallelism must be at "
+                    + "least 1");
+        this.TABLEAU = tableau;
+        N = TABLEAU.getN();
+        P = parallelism;
+        CHECKPOINT = checkpoint;
+        INTERVAL = interval;
+        METRICS = new SearchMetrics(N);
+    }
+
+    /**
+     * Counts every tableau of this shape.
+     * @return the number of tableaux of this shape
+     * @throws IOException
+     * if the checkpoint cannot be written
+     */
+    public long count() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(P);
+        ScheduledExecutorService saver = null;
+        METRICS.begin();
+        if(CHECKPOINT != null || progress > 0) {
+            saver = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "monitor");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        if(progress > 0)
+            saver.scheduleAtFixedRate(() -> System.out.println(
+                    METRICS.progress()), progress, progress, TimeUnit.SECONDS);
+        if(CHECKPOINT != null) {
+            saver.scheduleWithFixedDelay(() -> {
+                try {
+                    CHECKPOINT.write();
+                } catch(IOException e) {
+                    System.out.println("Could not write checkpoint: " +
+                            e.getMessage());
+                }
+            }, INTERVAL, INTERVAL, TimeUnit.SECONDS);
+        }
+        try {
+            long total = pool.invoke(countTask());
+            if(saver != null)
+                saver.shutdownNow();
+            if(CHECKPOINT != null)
+                CHECKPOINT.delete();
+            return total;
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if(saver != null)
+                saver.shutdownNow();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns a task that counts every tableau of this shape on whichever
+     * pool runs it, so many shapes can share one pool.  Unlike
+     * {@link #count()}, the task never prints progress or saves the
+     * checkpoint to its file.
+     * @return the counting task
+     */
+    public ForkJoinTask<Long> countTask() {
+        if(symmetry && sink == null && TABLEAU.getTransposable()) {
+            //Transposing swaps the only two places 2 can go, so the tableaux
+            //with 2 in the first entry are exactly half of them
+            List<int[]> prefixes = new ArrayList<>();
+            if(units > 1) {
+                for(int[] prefix : new TreeEstimator(TABLEAU, 0L).partition(
+                        units, UNIT_PROBES)) {
+                    if(prefix.length > 0 && prefix[0] == 2)
+                        prefixes.add(prefix);
+                }
+            } else
+                prefixes.add(new int[] {2});
+            return new UnitsTask(prefixes, 2L);
+        }
+        if(units > 1)
+            return countTask(new TreeEstimator(TABLEAU, 0L).partition(units,
+                    UNIT_PROBES));
+        return new SubtreeTask(new int[0]);
+    }
+
+    /**
+     * Returns a task that counts every tableau below some prefixes on
+     * whichever pool runs it.
+     * @param prefixes
+     * the first entries of each subtree to count, none of them a prefix of
+     * another
+     * @return the counting task
+     */
+    public ForkJoinTask<Long> countTask(List<int[]> prefixes) {
+        return new UnitsTask(prefixes, 1L);
+    }
+
+    /**
+     * Turns pruning by looking ahead on or off.  It is on by default; turning
+     * it off shows how many more nodes the plain rule check visits.
+     * @param lookahead
+     * true to prune entries that leave the rest of the tableau unfillable
+     */
+    public void setLookahead(boolean lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Turns counting only half of the tableaux of transposable shapes on or
+     * off.  It is on by default, and only changes the count of shapes whose
+     * {@link Tableau#getTransposable()} is true.
+     * @param symmetry
+     * true to search only the tableaux with 2 in the first entry of
+     * transposable shapes and double their count
+     */
+    public void setSymmetry(boolean symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Hands every tableau found to a sink, one subtree at a time, instead of
+     * only counting them.  Since every tableau must be found, the symmetry
+     * of transposable shapes and known subtree counts are not used while a
+     * sink is set, and the checkpoint does not record the subtrees' progress.
+     * @param sink
+     * where the tableaux of each subtree go, or null to only count them
+     */
+    public void setSink(SubtreeSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Cuts the search tree into subtrees of roughly equal estimated cost
+     * before counting, instead of only splitting it as workers run dry.
+     * @param units
+     * how many subtrees to cut the tree into, or 0 to not cut it up front
+     * @see TreeEstimator#partition(int, long)
+     */
+    public void setWorkUnits(int units) {
+        this.units = units;
+    }
+
+    /**
+     * Supplies subtree counts found by an earlier search of this shape, so
+     * those subtrees are not searched again.
+     * @param subtrees
+     * counts of finished subtrees, keyed by prefix like "3,5,"
+     * @see #getSubtreeCounts()
+     */
+    public void setKnownSubtrees(Map<String, Long> subtrees) {
+        this.known = subtrees;
+    }
+
+    /**
+     * Returns the counts of the finished subtrees below each value of the
+     * first entry and each pair of values of the first two entries,
+     * including those that were already known.
+     * The map is live, so it can be read while a count is still running.
+     * @return subtree counts keyed by prefix like "3,5,"
+     */
+    public Map<String, Long> getSubtreeCounts() {
+        return Collections.unmodifiableMap(SUBTREES);
+    }
+
+    /**
+     * Prints a line of progress every given number of seconds while
+     * counting.
+     * @param seconds
+     * the number of seconds between progress lines, or 0 for none
+     * @see SearchMetrics#progress()
+     */
+    public void setProgress(long seconds) {
+        this.progress = seconds;
+    }
+
+    /**
+     * Returns the number of search tree nodes visited by every count so far.
+     * @return the number of visited nodes
+     */
+    public long getNodes() {
+        return METRICS.getNodes();
+    }
+
+    /**
+     * Returns the number of nodes the lookahead pruned by every count so far.
+     * @return the number of pruned nodes
+     */
+    public long getPruned() {
+        return METRICS.getPruned();
+    }
+
+    /**
+     * Returns the live counters of this counter's searches.
+     * @return the search metrics
+     */
+    public SearchMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Returns the number of worker threads this counter uses.
+     * @return the parallelism level
+     */
+    public int getParallelism() {
+        return P;
+    }
+
+    /**
+     * Counts every tableau of a list of subtrees.
+     */
+    private final class UnitsTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+        private final List<int[]> prefixes;
+        private final long factor;  //Tableaux each one found stands for
+
+        UnitsTask(List<int[]> prefixes, long factor) {
+            this.prefixes = prefixes;
+            this.factor = factor;
+        }
+
+        @Override
+        protected Long compute() {
+            ArrayList<SubtreeTask> children = new ArrayList<>();
+            for(int[] prefix : prefixes) {
+                children.add(new SubtreeTask(prefix));
+            }
+            long found = 0L;
+            for(SubtreeTask child : invokeAll(children)) {
+                found += child.join();
+            }
+            return found * factor;
+        }
+    }
+
+    /**
+     * Counts every tableau that begins with a given prefix of entries.
+     */
+    private final class SubtreeTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+        private final int[] prefix;
+
+        SubtreeTask(int[] prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected Long compute() {
+            String key = prefix.length > 0 &&
+                    prefix.length <= RECORDED_DEPTH ?
+                    Checkpoint.key(prefix) : null;
+            Long found = key == null || sink != null ? null :
+                    known.get(key);
+            if(found == null)
+                found = search();
+            if(key != null)
+                SUBTREES.put(key, found);
+            return found;
+        }
+
+        private long search() {
+            int w = prefix.length;
+            if(CHECKPOINT != null && CHECKPOINT.getDone(prefix) >= 0)
+                return CHECKPOINT.getDone(prefix);
+            SearchState search = new SearchState(TABLEAU, lookahead);
+            if(!search.reset(prefix, w))
+                return 0L;
+            boolean mustSplit = w < Math.min(RECORDED_DEPTH, N) ||
+                    CHECKPOINT != null && CHECKPOINT.hasRecordsBelow(prefix);
+            //A subtree stopped partway through resumes where it was stopped,
+            //which only the sequential search can do
+            boolean resumed = sink == null && CHECKPOINT != null &&
+                    CHECKPOINT.getProgress(prefix) != null;
+            if(resumed || !mustSplit && (N - w <= SEQUENTIAL_DEPTH ||
+                    getSurplusQueuedTaskCount() >= SURPLUS_LIMIT)) {
+                METRICS.start(prefix);
+                try {
+                    return sink != null ? write(search) :
+                            CHECKPOINT == null ? count(search) :
+                            sequential(search);
+                } finally {
+                    METRICS.stop();
+                }
+            }
+            ArrayList<SubtreeTask> children = new ArrayList<>();
+            while(search.next(w + 1)) {
+                children.add(new SubtreeTask(
+                        Arrays.copyOf(search.getEntries(), w + 1)));
+            }
+            search.drainTo(METRICS, 0L);
+            long found = 0L;
+            for(SubtreeTask child : invokeAll(children)) {
+                found += child.join();
+            }
+            if(CHECKPOINT != null)
+                CHECKPOINT.merge(prefix, found);
+            return found;
+        }
+
+        private long count(SearchState search) {
+            long found = 0L;
+            while(search.next(N)) {
+                if((++found & DRAIN_MASK) == 0)
+                    search.drainTo(METRICS, DRAIN_MASK + 1);
+            }
+            search.drainTo(METRICS, found & DRAIN_MASK);
+            return found;
+        }
+
+        private long write(SearchState search) {
+            long found = 0L;
+            try {
+                TableauSink out = sink.begin(prefix);
+                while(search.next(N)) {
+                    if(found++ == 0)
+                        out.accept(search.getEntries());
+                    else
+                        out.accept(search.getEntries(), search.getChanged());
+                    if((found & DRAIN_MASK) == 0)
+                        search.drainTo(METRICS, DRAIN_MASK + 1);
+                }
+                sink.end(prefix, found);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            search.drainTo(METRICS, found & DRAIN_MASK);
+            return found;
+        }
+
+        private long sequential(SearchState search) {
+            long found = 0L;
+            Checkpoint.Progress saved = CHECKPOINT.getProgress(prefix);
+            if(saved != null) {
+                if(search.reset(saved.getEntries(), N)) {
+                    search.rebase(prefix.length);
+                    found = saved.getCount();
+                } else
+                    search.reset(prefix, prefix.length);
+            }
+            long drained = found;
+            while(search.next(N)) {
+                if((++found & DRAIN_MASK) != 0)
+                    continue;
+                search.drainTo(METRICS, found - drained);
+                drained = found;
+                if((found & PROGRESS_MASK) == 0)
+                    CHECKPOINT.progress(prefix, search.getEntries(), found);
+            }
+            search.drainTo(METRICS, found - drained);
+            CHECKPOINT.finish(prefix, found);
+            return found;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package tableaucounter;
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Counts tableaux of a given shape without enumerating them.  The values
+ * 2, 3, 4, ... are placed in increasing order, so at every step the filled
+ * entries of each cell are a prefix of that cell.  Which values can come
+ * next only depends on how many entries of each cell are filled, the
+ * frontier, so the number of ways to reach each frontier is counted one
+ * level of frontiers at a time: every value placed leads from the frontiers
+ * with one number of entries filled to those with one more.  Nothing
+ * recurses, so shapes with any number of entries are counted, and a level
+ * is dropped once the next one is counted.
+ * <p>
+ * A frontier that fits in 63 bits is packed into a single long and memoized
+ * in a {@link LongLongMap}.  Larger shapes spread their frontier over several
+ * words, and counts too large for a long are redone with {@link BigInteger}s,
+ * so the common small case never pays for either.
+ * <p>
+ * Keeping every level also draws tableaux uniformly at random: walking down
+ * from the full frontier, the cell that took each value is chosen with
+ * probability proportional to the number of ways to reach the frontier
+ * without it, so no tableau is ever enumerated.
+ * @author Benjamin Levandowski
+ */
+public class FrontierCounter {
+
+    private final int N;
+    private final int[] MAXIMA;
+    private final int[][] PREDECESSORS;  //Entries that must be smaller
+    private final int[] CELL_FIRST, CELL_SIZE, WORD, SHIFT;  //For each cell
+    private final int[] CELL_OF, SLOT_OF;  //One for each entry
+    private final long[] MASK;
+    private final int WORDS;  //Longs in a frontier
+    private final long[] FULL;  //The frontier with every entry filled
+    private final LongLongMap MEMO = new LongLongMap();
+    private int states = 0;
+    //While counting below a prefix, the value fixed for each entry or 0, and
+    //whether each value is fixed for some entry.  Null otherwise
+    private int[] pins;
+    private boolean[] taken;
+    //What the sampler reads counts from: 0 for nothing yet, 1 for MEMO and 2
+    //for wideCounts
+    private int tables = 0;
+    private HashMap<Frontier, BigInteger> wideCounts;
+
+    /**
+     * Creates a counter for a given tableau shape.
+     * @param tableau
+     * the shape of the tableau to count
+     */
+    public FrontierCounter(Tableau tableau) {
+        N = tableau.getN();
+        CompiledRules rules = tableau.getCompiledRules();
+        MAXIMA = rules.getMaxima();
+        int[] weights = tableau.getWeights();
+        int cells = weights.length - (tableau.getRect() ? 2 : 1);
+        CELL_FIRST = new int[cells];
+        CELL_SIZE = new int[cells];
+        WORD = new int[cells];
+        SHIFT = new int[cells];
+        MASK = new long[cells];
+        CELL_OF = new int[N];
+        SLOT_OF = new int[N];
+        int p = 0, word = 0, bits = 0;
+        for(int c = 0; c < cells; c++) {
+            CELL_FIRST[c] = p;
+            CELL_SIZE[c] = weights[c + 1];  //The top left cell is fixed
+            int width = 32 - Integer.numberOfLeadingZeros(CELL_SIZE[c]);
+            if(bits + width > 63) {  //Cells never straddle two words
+                word++;
+                bits = 0;
+            }
+            WORD[c] = word;
+            SHIFT[c] = bits;
+            MASK[c] = (1L << width) - 1;
+            bits += width;
+            for(int k = 0; k < CELL_SIZE[c]; k++) {
+                CELL_OF[p] = c;
+                SLOT_OF[p++] = k;
+            }
+        }
+        WORDS = word + 1;
+        FULL = new long[WORDS];
+        for(int c = 0; c < cells; c++) {
+            FULL[WORD[c]] += (long) CELL_SIZE[c] << SHIFT[c];
+        }
+        PREDECESSORS = new int[N][];
+        final int[] offsets = rules.getOffsets(), others = rules.getOthers();
+        for(int i = 0; i < N; i++) {
+            int c = offsets[i];
+            while(c < offsets[i + 1] && others[c] >= 0) {
+                c++;
+            }
+            PREDECESSORS[i] = Arrays.copyOfRange(others, offsets[i], c);
+        }
+    }
+
+    /**
+     * Counts every tableau of this shape, keeping only two levels of
+     * frontiers at a time.
+     * @return the number of tableaux of this shape
+     * @throws ArithmeticException
+     * if the count does not fit in a long
+     */
+    public long count() {
+        return count(false);
+    }
+
+    /**
+     * Counts every tableau of this shape, keeping every level of frontiers
+     * for {@link #sample(Random)} if asked to and the frontier fits in a
+     * long.
+     * @param keepLevels
+     * true to keep every level, so later draws reuse this count
+     * @return the number of tableaux of this shape
+     * @throws ArithmeticException
+     * if the count does not fit in a long
+     */
+    public long count(boolean keepLevels) {
+        tables = 0;
+        if(WORDS == 1) {
+            long total = reach(keepLevels);
+            if(keepLevels)
+                tables = 1;
+            return total;
+        }
+        return reach(new HashMap<>(), LONGS, false);
+    }
+
+    /**
+     * Counts every tableau of this shape, however many there are.  The count
+     * is first tried with longs, and only redone with {@link BigInteger}s
+     * if it overflows.
+     * @return the number of tableaux of this shape
+     */
+    public BigInteger countExact() {
+        return countExact(false);
+    }
+
+    /**
+     * Counts every tableau of this shape, however many there are, keeping
+     * every level of frontiers for {@link #sample(Random)} if asked to.
+     * @param keepLevels
+     * true to keep every level, so later draws reuse this count
+     * @return the number of tableaux of this shape
+     */
+    public BigInteger countExact(boolean keepLevels) {
+        //The sampler only reads levels of several words as BigIntegers
+        if(WORDS == 1 || !keepLevels) {
+            try {
+                return BigInteger.valueOf(count(keepLevels));
+            } catch(ArithmeticException e) {
+                MEMO.clear();
+                tables = 0;
+            }
+        }
+        if(!keepLevels)
+            return reach(new HashMap<>(), WIDE, false);
+        wideCounts = new HashMap<>();
+        BigInteger total = reach(wideCounts, WIDE, true);
+        tables = 2;
+        return total;
+    }
+
+    /**
+     * Counts the tableaux whose first entries are fixed, that is, the leaves
+     * below a prefix of the search tree of {@link SearchState}.  Every
+     * prefix is counted afresh, in about the time of {@link #count()}.
+     * @param prefix
+     * the entries every counted tableau begins with
+     * @param length
+     * the number of entries of the prefix to use
+     * @return the number of tableaux beginning with the prefix
+     * @throws ArithmeticException
+     * if the count does not fit in a long
+     */
+    public long count(int[] prefix, int length) {
+        pins = new int[N];
+        taken = new boolean[N + 2];
+        for(int i = 0; i < length; i++) {
+            int v = prefix[i];
+            if(v < 2 || v > N + 1 || taken[v]) {
+                pins = null;
+                return 0L;
+            }
+            pins[i] = v;
+            taken[v] = true;
+        }
+        MEMO.clear();
+        tables = 0;
+        try {
+            if(WORDS == 1)
+                return reach(false);
+            return reach(new HashMap<>(), LONGS, false);
+        } finally {
+            MEMO.clear();
+            pins = null;
+            taken = null;
+        }
+    }
+
+    /**
+     * Draws a tableau of this shape uniformly at random.  The first draw
+     * counts every frontier, and later draws reuse those counts, so each one
+     * only walks once through the values.
+     * @param random
+     * the source of randomness
+     * @return the entries of the tableau, as {@link Tableau#print(int[])}
+     * takes them
+     */
+    public int[] sample(Random random) {
+        if(tables == 0)
+            countExact(true);
+        int[] entries = new int[N];
+        if(tables == 1)
+            sample(random, entries);
+        else
+            sampleWide(random, entries);
+        return entries;
+    }
+
+    /**
+     * Draws many tableaux of this shape uniformly at random and independently
+     * of each other, counting every frontier only once for all of them.
+     * @param random
+     * the source of randomness
+     * @param samples
+     * the number of tableaux to draw
+     * @return the entries of each tableau
+     */
+    public List<int[]> sample(Random random, int samples) {
+        ArrayList<int[]> drawn = new ArrayList<>(samples);
+        for(int i = 0; i < samples; i++) {
+            drawn.add(sample(random));
+        }
+        return drawn;
+    }
+
+    /**
+     * Returns the number of frontiers reached by the last count.
+     * @return the number of distinct frontiers visited
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     * Returns how many longs a frontier of this shape takes.
+     * @return 1 if the frontier fits in 63 bits, and more otherwise
+     */
+    public int getWords() {
+        return WORDS;
+    }
+
+    //Counts the ways to reach each frontier from the empty one, a level at
+    //a time, keeping every level in MEMO for the sampler or only the last.
+    //Returns the ways to reach the full frontier
+    private long reach(boolean keep) {
+        MEMO.clear();
+        LongLongMap counts = keep ? MEMO : new LongLongMap();
+        counts.put(0L, 1L);
+        long[] level = {0L};
+        int size = 1;
+        states = 0;
+        for(int filled = 0; filled < N && size > 0; filled++) {
+            LongLongMap next = keep ? counts : new LongLongMap();
+            long[] reached = new long[Math.max(16, size)];
+            int found = 0;
+            int v = filled + 2;
+            for(int i = 0; i < size; i++) {
+                long state = level[i], ways = counts.get(state, 0L);
+                for(int c = 0; c < CELL_FIRST.length; c++) {
+                    int k = (int) ((state >>> SHIFT[c]) & MASK[c]);
+                    if(k == CELL_SIZE[c])
+                        continue;
+                    int p = CELL_FIRST[c] + k;
+                    if(v > MAXIMA[p] || !allowed(p, v) || !ready(state, p))
+                        continue;
+                    long after = state + (1L << SHIFT[c]);
+                    long before = next.get(after, -1L);
+                    if(before < 0) {
+                        if(found == reached.length)
+                            reached = Arrays.copyOf(reached, found << 1);
+                        reached[found++] = after;
+                        before = 0L;
+                    }
+                    next.put(after, Math.addExact(before, ways));
+                }
+            }
+            states += size;
+            counts = next;
+            level = reached;
+            size = found;
+        }
+        states += size;
+        return size == 0 ? 0L : counts.get(level[0], 0L);
+    }
+
+    //The same as reach(boolean) for frontiers of several words, keeping the
+    //levels in counts
+    private <T> T reach(HashMap<Frontier, T> counts, Arithmetic<T> arithmetic,
+            boolean keep) {
+        Frontier start = new Frontier(new long[WORDS]);
+        counts.put(start, arithmetic.one());
+        ArrayList<Frontier> level = new ArrayList<>();
+        level.add(start);
+        states = 0;
+        for(int filled = 0; filled < N && !level.isEmpty(); filled++) {
+            HashMap<Frontier, T> next = keep ? counts : new HashMap<>();
+            ArrayList<Frontier> reached = new ArrayList<>();
+            int v = filled + 2;
+            for(Frontier frontier : level) {
+                long[] state = frontier.WORDS;
+                T ways = counts.get(frontier);
+                for(int c = 0; c < CELL_FIRST.length; c++) {
+                    int k = (int) ((state[WORD[c]] >>> SHIFT[c]) & MASK[c]);
+                    if(k == CELL_SIZE[c])
+                        continue;
+                    int p = CELL_FIRST[c] + k;
+                    if(v > MAXIMA[p] || !allowed(p, v) || !ready(state, p))
+                        continue;
+                    long[] after = state.clone();
+                    after[WORD[c]] += 1L << SHIFT[c];
+                    Frontier key = new Frontier(after);
+                    T before = next.get(key);
+                    if(before == null)
+                        reached.add(key);
+                    next.put(key, before == null ? ways :
+                            arithmetic.add(before, ways));
+                }
+            }
+            states += level.size();
+            counts = next;
+            level = reached;
+        }
+        states += level.size();
+        return level.isEmpty() ? arithmetic.zero() : counts.get(level.get(0));
+    }
+
+
+    //Picks the tableau with a uniformly random index among those reaching
+    //the full frontier, walking down the values and skipping the tableaux
+    //that gave each value to a cell not taken
+    private void sample(Random random, int[] entries) {
+        long state = FULL[0];
+        long index = below(random, MEMO.get(state, 0L));
+        for(int filled = N; filled > 0; filled--) {
+            int v = filled + 1;
+            for(int c = 0; c < CELL_FIRST.length; c++) {
+                int k = (int) ((state >>> SHIFT[c]) & MASK[c]);
+                if(k == 0)
+                    continue;
+                int p = CELL_FIRST[c] + k - 1;
+                long before = state - (1L << SHIFT[c]);
+                if(v > MAXIMA[p] || !ready(before, p))
+                    continue;
+                long tableaux = MEMO.get(before, 0L);
+                if(index < tableaux) {
+                    entries[p] = v;
+                    state = before;
+                    break;
+                }
+                index -= tableaux;
+            }
+        }
+    }
+
+    //The same as sample(Random, int[]) for counts too large for a long
+    private void sampleWide(Random random, int[] entries) {
+        long[] state = FULL.clone();
+        BigInteger total = wideCounts.get(new Frontier(state)), index;
+        do {
+            index = new BigInteger(total.bitLength(), random);
+        } while(index.compareTo(total) >= 0);
+        for(int filled = N; filled > 0; filled--) {
+            int v = filled + 1;
+            for(int c = 0; c < CELL_FIRST.length; c++) {
+                int k = (int) ((state[WORD[c]] >>> SHIFT[c]) & MASK[c]);
+                if(k == 0)
+                    continue;
+                int p = CELL_FIRST[c] + k - 1;
+                long[] before = state.clone();
+                before[WORD[c]] -= 1L << SHIFT[c];
+                if(v > MAXIMA[p] || !ready(before, p))
+                    continue;
+                BigInteger tableaux = wideCounts.get(new Frontier(before));
+                if(tableaux == null)
+                    continue;
+                if(index.compareTo(tableaux) < 0) {
+                    entries[p] = v;
+                    state = before;
+                    break;
+                }
+                index = index.subtract(tableaux);
+            }
+        }
+    }
+
+    //A uniformly random long from 0 up to but not including bound
+    private static long below(Random random, long bound) {
+        long bits, value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while(bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    //Whether a prefix being counted below lets entry p take value v
+    private boolean allowed(int p, int v) {
+        return pins == null || (pins[p] == 0 ? !taken[v] : pins[p] == v);
+    }
+
+    private boolean ready(long[] state, int p) {
+        for(int a : PREDECESSORS[p]) {
+            int c = CELL_OF[a];
+            if(((state[WORD[c]] >>> SHIFT[c]) & MASK[c]) <= SLOT_OF[a])
+                return false;
+        }
+        return true;
+    }
+
+    private boolean ready(long state, int p) {
+        for(int a : PREDECESSORS[p]) {
+            int c = CELL_OF[a];
+            if(((state >>> SHIFT[c]) & MASK[c]) <= SLOT_OF[a])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adding up counts of some number type.
+     */
+    private interface Arithmetic<T> {
+        T zero();
+        T one();
+        T add(T a, T b);
+    }
+
+    private static final Arithmetic<Long> LONGS = new Arithmetic<Long>() {
+        @Override
+        public Long zero() {return 0L;}
+
+        @Override
+        public Long one() {return 1L;}
+
+        @Override
+        public Long add(Long a, Long b) {return Math.addExact(a, b);}
+    };
+
+    private static final Arithmetic<BigInteger> WIDE =
+            new Arithmetic<BigInteger>() {
+        @Override
+        public BigInteger zero() {return BigInteger.ZERO;}
+
+        @Override
+        public BigInteger one() {return BigInteger.ONE;}
+
+        @Override
+        public BigInteger add(BigInteger a, BigInteger b) {return a.add(b);}
+    };
+
+    /**
+     * A frontier of several words, as a hash map key.
+     */
+    static final class Frontier {
+
+        final long[] WORDS;
+        private final int HASH;
+
+        Frontier(long[] words) {
+            this.WORDS = words;
+            HASH = Arrays.hashCode(words);
+        }
+
+        @Override
+        public int hashCode() {return HASH;}
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Frontier &&
+                    Arrays.equals(WORDS, ((Frontier) o).WORDS);
+        }
+    }
+}
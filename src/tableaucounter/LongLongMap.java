@@ -0,0 +1,98 @@
+package tableaucounter;
+
+import java.util.*;
+
+/**
+ * An open addressing hash map from non-negative {@code long} keys to
+ * {@code long} values, so memo tables do not box every state.
+ * @author Benjamin Levandowski
+ */
+public final class LongLongMap {
+
+    private static final long EMPTY = -1L;
+    private long[] keys, values;
+    private int size, shift;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongLongMap() {
+        shift = 64 - 10;
+        keys = new long[1 << 10];
+        values = new long[keys.length];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns the value stored for a key.
+     * @param key
+     * a non-negative key
+     * @param missing
+     * the value to return if the key is not present
+     * @return the value for the key, or {@code missing}
+     */
+    public long get(long key, long missing) {
+        int i = slot(key);
+        while(keys[i] != EMPTY) {
+            if(keys[i] == key)
+                return values[i];
+            i = (i + 1) & (keys.length - 1);
+        }
+        return missing;
+    }
+
+    /**
+     * Stores a value for a key, replacing any earlier value.
+     * @param key
+     * a non-negative key
+     * @param value
+     * the value to store
+     */
+    public void put(long key, long value) {
+        if(key < 0)
+            throw new IllegalArgumentException("Keys must be non-negative");
+        int i = slot(key);
+        while(keys[i] != EMPTY) {
+            if(keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = key;
+        values[i] = value;
+        if(++size > keys.length >>> 1)
+            grow();
+    }
+
+    /**
+     * Returns the number of keys in the map.
+     * @return the number of keys
+     */
+    public int size() {return size;}
+
+    /**
+     * Removes every key.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys, oldValues = values;
+        shift--;
+        keys = new long[oldKeys.length << 1];
+        values = new long[keys.length];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] != EMPTY)
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
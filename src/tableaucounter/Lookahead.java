@@ -0,0 +1,76 @@
+package tableaucounter;
+
+/**
+ * Tables for checking ahead of the search whether a partial tableau can
+ * still be finished.  Entries are filled in order, so the unfilled entries
+ * are always the ones after the working index, and both tables only depend
+ * on the working index.
+ * @author Benjamin Levandowski
+ */
+final class Lookahead {
+
+    /**
+     * For each entry, how many later entries must be larger than it.
+     */
+    final int[] SUCCESSORS;
+    /**
+     * For each entry, the distinct maxima of the entries after it, in
+     * increasing order.
+     */
+    final int[][] LIMITS;
+    /**
+     * For each entry, how many entries after it have a maximum of at most the
+     * matching limit.  Each of them needs its own free value below that limit.
+     */
+    final int[][] NEEDED;
+
+    /**
+     * Builds the tables from a tableau's rules.
+     * @param rules
+     * the compiled rules of the tableau
+     */
+    Lookahead(CompiledRules rules) {
+        final int[] offsets = rules.getOffsets(), others = rules.getOthers(),
+                maxima = rules.getMaxima();
+        int n = rules.getN();
+        int words = (n >>> 6) + 1;
+        long[][] later = new long[n][words];
+        SUCCESSORS = new int[n];
+        for(int p = n - 1; p >= 0; p--) {
+            for(int i = offsets[p]; i < offsets[p + 1]; i++) {
+                int b = ~others[i];
+                if(b <= p)
+                    continue;
+                later[p][b >>> 6] |= 1L << b;
+                for(int j = 0; j < words; j++) {
+                    later[p][j] |= later[b][j];
+                }
+            }
+            for(long word : later[p]) {
+                SUCCESSORS[p] += Long.bitCount(word);
+            }
+        }
+        LIMITS = new int[n][];
+        NEEDED = new int[n][];
+        //How many entries after w have each maximum, built up from the end
+        int top = 0;
+        for(int m : maxima) {
+            top = Math.max(top, m);
+        }
+        int[] counts = new int[top + 1];
+        int distinct = 0;
+        for(int w = n - 1; w >= 0; w--) {
+            LIMITS[w] = new int[distinct];
+            NEEDED[w] = new int[distinct];
+            for(int m = 0, k = 0, c = 0; k < distinct; m++) {
+                if(counts[m] == 0)
+                    continue;
+                c += counts[m];
+                LIMITS[w][k] = m;
+                NEEDED[w][k++] = c;
+            }
+            if(counts[maxima[w]]++ == 0)
+                distinct++;
+        }
+    }
+}
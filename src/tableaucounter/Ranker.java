@@ -0,0 +1,106 @@
+package tableaucounter;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Numbers the tableaux of a shape in the order {@link Counter} writes them,
+ * so any one of them can be found without enumerating those before it.
+ * Walking down the search tree, {@link FrontierCounter#count(int[], int)}
+ * tells how many tableaux lie below each candidate value, so whole subtrees
+ * are skipped at once.  Finding a tableau by its index, or an index by its
+ * tableau, takes one frontier count per candidate along a single path.
+ * @author Benjamin Levandowski
+ */
+public class Ranker {
+
+    private final Tableau TABLEAU;
+    private final int N;
+    private final SearchState SEARCH;
+    private final FrontierCounter FRONTIER;
+    private final int[] CANDIDATES;
+    private long size = -1L;
+
+    /**
+     * Creates a ranker for a given tableau shape.
+     * @param tableau
+     * the shape whose tableaux are numbered
+     */
+    public Ranker(Tableau tableau) {
+        this.TABLEAU = tableau;
+        N = TABLEAU.getN();
+        SEARCH = new SearchState(TABLEAU);
+        FRONTIER = new FrontierCounter(TABLEAU);
+        CANDIDATES = new int[N + 2];
+    }
+
+    /**
+     * Returns the number of tableaux of this shape, one more than the last
+     * index.
+     * @return the number of tableaux
+     * @throws ArithmeticException
+     * if the count does not fit in a long
+     */
+    public long size() {
+        if(size < 0)
+            size = FRONTIER.count(new int[0], 0);
+        return size;
+    }
+
+    /**
+     * Finds the tableau with a given index.
+     * @param index
+     * the position of the tableau in the order {@link Counter} writes them,
+     * from 0
+     * @return the entries of the tableau
+     * @throws RejectedExecutionException
+     * if there is no tableau with that index
+     */
+    public int[] unrank(long index) {
+        if(index < 0 || index >= size())
+            throw new RejectedExecutionException("There is no tableau " +
+                    index + " of the " + size());
+        int[] entries = new int[N];
+        SEARCH.reset(entries, 0);
+        for(int w = 0; w < N; w++) {
+            int k = SEARCH.candidates(CANDIDATES);
+            for(int i = 0; i < k; i++) {
+                entries[w] = CANDIDATES[i];
+                long below = FRONTIER.count(entries, w + 1);
+                if(index < below)
+                    break;
+                index -= below;
+            }
+            SEARCH.place(entries[w]);
+        }
+        return entries;
+    }
+
+    /**
+     * Finds the index of a tableau.
+     * @param entries
+     * the entries of a tableau of this shape
+     * @return the position of the tableau in the order {@link Counter}
+     * writes them, from 0
+     * @throws RejectedExecutionException
+     * if the entries are not a tableau of this shape
+     */
+    public long rank(int[] entries) {
+        if(entries.length != N || !SEARCH.reset(entries, N))
+            throw new RejectedExecutionException(Arrays.toString(entries) +
+                    " is not a tableau of this shape");
+        int[] prefix = new int[N];
+        long index = 0L;
+        SEARCH.reset(prefix, 0);
+        for(int w = 0; w < N; w++) {
+            int k = SEARCH.candidates(CANDIDATES);
+            for(int i = 0; i < k && CANDIDATES[i] < entries[w]; i++) {
+                prefix[w] = CANDIDATES[i];
+                index += FRONTIER.count(prefix, w + 1);
+            }
+            prefix[w] = entries[w];
+            SEARCH.place(entries[w]);
+        }
+        return index;
+    }
+}
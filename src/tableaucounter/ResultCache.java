@@ -0,0 +1,372 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Remembers the counts of shapes across runs.  Results are keyed by
+ * {@link Tableau#describe()}, so the same weights always find the same
+ * result however Tableau.txt was spaced.  Besides the total, a result can
+ * keep the counts of subtrees named by their prefix the way
+ * {@link Checkpoint} names them, so a search that never finished still
+ * leaves behind the subtrees it did.
+ * <p>
+ * The index is a small memory-mapped hash table in results.idx, with a slot
+ * for each shape pointing at its record in the data file of the current
+ * generation, results-g.dat.  Updated records are appended, so the data file
+ * only grows until it passes the size cap or the index fills up.  Then the
+ * least recently used results are copied into the data file of the next
+ * generation and indexed in the table that is not in use, since results.idx
+ * holds two.  Only once both are on disk does the header switch to the new
+ * generation, so a run stopped at any point leaves either the old cache or
+ * the new one whole.  Only one run can use a cache at a time.
+ * @author Benjamin Levandowski
+ */
+public final class ResultCache implements Closeable {
+
+    /**
+     * The default limit on the size of the cache, in bytes.
+     */
+    public static final long DEFAULT_LIMIT = 64L << 20;
+
+    private static final int MAGIC = 0x54425232;  //"TBR2"
+    private static final int SLOTS = 4096;  //A power of two
+    private static final int HEADER = 32, SLOT = 32;
+    //Offsets within the header, after the magic number and the slot count
+    private static final int CLOCK = 8, GENERATION = 16;
+    //Offsets within a slot
+    private static final int HASH = 0, USED = 8, OFFSET = 16, LENGTH = 24;
+
+    private final Path DIRECTORY;
+    private final long LIMIT;
+    private final FileChannel INDEX;
+    private final FileLock LOCK;
+    private final MappedByteBuffer TABLE;
+    private FileChannel data;
+    private long generation;
+    private int table;  //Where the slots of the current generation start
+    private int live;  //Slots in use
+
+    private ResultCache(Path directory, long limit) throws IOException {
+        Files.createDirectories(directory);
+        DIRECTORY = directory;
+        LIMIT = limit;
+        INDEX = FileChannel.open(directory.resolve("results.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        LOCK = INDEX.tryLock();
+        if(LOCK == null) {
+            INDEX.close();
+            throw new IOException(directory + " is in use by another run");
+        }
+        TABLE = INDEX.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER + 2L * SLOTS * SLOT);
+        boolean fresh = TABLE.getInt(0) != MAGIC ||
+                TABLE.getInt(4) != SLOTS;
+        if(fresh) {
+            for(int i = 0; i < TABLE.capacity(); i += 8) {
+                TABLE.putLong(i, 0L);
+            }
+            TABLE.putInt(0, MAGIC);
+            TABLE.putInt(4, SLOTS);
+        }
+        generation = TABLE.getLong(GENERATION);
+        table = table(generation);
+        data = FileChannel.open(dataFile(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if(fresh)
+            data.truncate(0L);
+        //Data files of other generations were left by a stopped eviction
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, "results*.dat*")) {
+            for(Path file : files) {
+                if(!file.getFileName().equals(dataFile(generation)
+                        .getFileName()))
+                    Files.delete(file);
+            }
+        }
+        for(int slot = 0; slot < SLOTS; slot++) {
+            if(TABLE.getLong(position(slot) + HASH) != 0L)
+                live++;
+        }
+    }
+
+    /**
+     * Opens the cache in a directory, creating it if needed.
+     * @param directory
+     * where the cache files are kept
+     * @param limit
+     * roughly how many bytes the cache may use
+     * @return the opened cache
+     * @throws IOException
+     * if the cache cannot be opened, or another run is using it
+     */
+    public static ResultCache open(Path directory, long limit) throws
+            IOException {
+        return new ResultCache(directory, limit);
+    }
+
+    /**
+     * Looks up the result of a shape.
+     * @param tableau
+     * the shape to look up
+     * @return the cached result, or null if there is none
+     * @throws IOException
+     * if the cache cannot be read
+     */
+    public synchronized Result get(Tableau tableau) throws IOException {
+        String key = tableau.describe();
+        int slot = find(hash(key), key);
+        if(slot < 0)
+            return null;
+        Result result = read(slot);
+        TABLE.putLong(position(slot) + USED, tick());
+        return result;
+    }
+
+    /**
+     * Stores the result of a shape.  Subtree counts are added to those
+     * already cached for the shape, and a total of -1 keeps a cached total.
+     * @param tableau
+     * the shape the result belongs to
+     * @param total
+     * the number of tableaux of the shape, or -1 if it is not known yet
+     * @param subtrees
+     * counts of finished subtrees, keyed by prefix like "3,5,"
+     * @throws IOException
+     * if the cache cannot be written
+     */
+    public synchronized void put(Tableau tableau, long total,
+            Map<String, Long> subtrees) throws IOException {
+        String key = tableau.describe();
+        long hash = hash(key);
+        int slot = find(hash, key);
+        TreeMap<String, Long> merged = new TreeMap<>(subtrees);
+        if(slot >= 0) {
+            Result old = read(slot);
+            if(total < 0)
+                total = old.TOTAL;
+            for(Map.Entry<String, Long> e : old.SUBTREES.entrySet()) {
+                merged.putIfAbsent(e.getKey(), e.getValue());
+            }
+        } else {
+            slot = -slot - 1;
+            live++;
+        }
+        //Subtrees only matter until the total is known
+        if(total >= 0)
+            merged.clear();
+        byte[] record = encode(key, total, merged);
+        long offset = data.size();
+        write(data, ByteBuffer.wrap(record), offset);
+        //The hash goes last, so a new slot is never used half written
+        int p = position(slot);
+        TABLE.putLong(p + USED, tick());
+        TABLE.putLong(p + OFFSET, offset);
+        TABLE.putInt(p + LENGTH, record.length);
+        TABLE.putLong(p + HASH, hash);
+        if(live > SLOTS / 4 * 3 || data.size() > LIMIT - TABLE.capacity())
+            evict();
+    }
+
+    /**
+     * Flushes the index and releases the cache for other runs.
+     * @throws IOException
+     * if the cache files cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        TABLE.force();
+        data.close();
+        LOCK.release();
+        INDEX.close();
+    }
+
+    //Keeps the most recently used results that fit in half of the slots and
+    //half of the room the index leaves for the data file, in the next
+    //generation
+    private void evict() throws IOException {
+        ArrayList<long[]> slots = new ArrayList<>();  //Used, slot
+        for(int slot = 0; slot < SLOTS; slot++) {
+            if(TABLE.getLong(position(slot) + HASH) != 0L)
+                slots.add(new long[] {TABLE.getLong(position(slot) + USED),
+                        slot});
+        }
+        slots.sort((a, b) -> Long.compare(b[0], a[0]));
+        long next = generation + 1;
+        Path nextFile = dataFile(next);
+        //Hash, used, offset and length of each kept result
+        ArrayList<long[]> kept = new ArrayList<>();
+        long size = 0L;
+        FileChannel out = FileChannel.open(nextFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            for(long[] s : slots) {
+                int p = position((int) s[1]);
+                int length = TABLE.getInt(p + LENGTH);
+                if(kept.size() >= SLOTS / 2 || size + length >
+                        (LIMIT - TABLE.capacity()) / 2)
+                    break;
+                ByteBuffer record = ByteBuffer.allocate(length);
+                read(data, record, TABLE.getLong(p + OFFSET));
+                record.flip();
+                write(out, record, size);
+                kept.add(new long[] {TABLE.getLong(p + HASH), s[0], size,
+                        length});
+                size += length;
+            }
+            out.force(true);
+        } catch(IOException | RuntimeException e) {
+            out.close();
+            Files.deleteIfExists(nextFile);
+            throw e;
+        }
+        //Index the kept results in the other table, then switch to it
+        int nextTable = table(next);
+        for(int slot = 0; slot < SLOTS; slot++) {
+            TABLE.putLong(nextTable + slot * SLOT + HASH, 0L);
+        }
+        for(long[] k : kept) {
+            int slot = (int) k[0] & (SLOTS - 1);
+            while(TABLE.getLong(nextTable + slot * SLOT + HASH) != 0L) {
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+            int p = nextTable + slot * SLOT;
+            TABLE.putLong(p + HASH, k[0]);
+            TABLE.putLong(p + USED, k[1]);
+            TABLE.putLong(p + OFFSET, k[2]);
+            TABLE.putInt(p + LENGTH, (int) k[3]);
+        }
+        TABLE.force();
+        TABLE.putLong(GENERATION, next);
+        TABLE.force();
+        Path oldFile = dataFile(generation);
+        data.close();
+        data = out;
+        generation = next;
+        table = nextTable;
+        live = kept.size();
+        Files.deleteIfExists(oldFile);
+    }
+
+    //The slot holding a key, or -1 minus the empty slot where it would go
+    private int find(long hash, String key) throws IOException {
+        int slot = (int) hash & (SLOTS - 1);
+        while(true) {
+            long h = TABLE.getLong(position(slot) + HASH);
+            if(h == 0L)
+                return -slot - 1;
+            if(h == hash && key.equals(read(slot).KEY))
+                return slot;
+            slot = (slot + 1) & (SLOTS - 1);
+        }
+    }
+
+    private Result read(int slot) throws IOException {
+        int p = position(slot);
+        ByteBuffer record = ByteBuffer.allocate(TABLE.getInt(p + LENGTH));
+        read(data, record, TABLE.getLong(p + OFFSET));
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(record.array()))) {
+            String key = in.readUTF();
+            long total = in.readLong();
+            TreeMap<String, Long> subtrees = new TreeMap<>();
+            for(int i = in.readInt(); i > 0; i--) {
+                subtrees.put(in.readUTF(), in.readLong());
+            }
+            return new Result(key, total, subtrees);
+        }
+    }
+
+    private static byte[] encode(String key, long total,
+            Map<String, Long> subtrees) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(key);
+            out.writeLong(total);
+            out.writeInt(subtrees.size());
+            for(Map.Entry<String, Long> e : subtrees.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer,
+            long offset) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, offset + buffer.position()) < 0)
+                throw new EOFException("The result cache ends early");
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer,
+            long offset) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    private long tick() {
+        long clock = TABLE.getLong(CLOCK) + 1;
+        TABLE.putLong(CLOCK, clock);
+        return clock;
+    }
+
+    private int position(int slot) {
+        return table + slot * SLOT;
+    }
+
+    //Where the slots of a generation start, alternating between two tables
+    private static int table(long generation) {
+        return HEADER + (int) (generation & 1L) * SLOTS * SLOT;
+    }
+
+    private Path dataFile(long generation) {
+        return DIRECTORY.resolve("results-" + generation + ".dat");
+    }
+
+    //64 bit FNV-1a, never 0 since 0 marks an empty slot
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for(byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return h == 0L ? 1L : h;
+    }
+
+    /**
+     * What the cache knows about one shape.
+     */
+    public static final class Result {
+
+        private final String KEY;
+        private final long TOTAL;
+        private final Map<String, Long> SUBTREES;
+
+        private Result(String key, long total, Map<String, Long> subtrees) {
+            this.KEY = key;
+            this.TOTAL = total;
+            this.SUBTREES = Collections.unmodifiableMap(subtrees);
+        }
+
+        /**
+         * Returns the number of tableaux of the shape.
+         * @return the total, or -1 if it is not known yet
+         */
+        public long getTotal() {return TOTAL;}
+
+        /**
+         * Returns the counts of the subtrees that were finished.
+         * @return subtree counts keyed by prefix like "3,5,"
+         */
+        public Map<String, Long> getSubtrees() {return SUBTREES;}
+    }
+}
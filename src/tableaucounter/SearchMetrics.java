@@ -0,0 +1,241 @@
+package tableaucounter;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+/**
+ * Live counters of a parallel search.  Each {@link SearchState} counts nodes,
+ * prunes and backtracks at every working index on its own, and only adds them
+ * here every few thousand tableaux with {@link SearchState#drainTo}, so the
+ * workers never contend on the search's hot path.  The same counters are
+ * readable over JMX and summed up by {@link #progress()}.
+ * @author Benjamin Levandowski
+ */
+public class SearchMetrics implements SearchMetricsMBean {
+
+    /**
+     * A subtree searched this long while another worker has nothing to do
+     * is reported as a straggler.
+     */
+    private static final long STRAGGLER_NANOS = 5000000000L;
+
+    private final AtomicLongArray NODES_AT, PRUNED_AT, BACKTRACKS_AT;
+    private final LongAdder TABLEAUX = new LongAdder();
+    private final List<Worker> WORKERS = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Worker> WORKER = ThreadLocal.withInitial(() -> {
+        Worker worker = new Worker(Thread.currentThread().getName());
+        WORKERS.add(worker);
+        return worker;
+    });
+    private volatile long startTime = System.nanoTime();
+    private long lastTime, lastNodes;  //When progress() was last called
+
+    /**
+     * Creates empty metrics for a search over a given number of entries.
+     * @param n
+     * the number of varying entries of the searched tableaux
+     */
+    public SearchMetrics(int n) {
+        NODES_AT = new AtomicLongArray(n);
+        PRUNED_AT = new AtomicLongArray(n);
+        BACKTRACKS_AT = new AtomicLongArray(n);
+        lastTime = startTime;
+    }
+
+    /**
+     * Marks the start of a search, which rates and utilization are measured
+     * from.  Each search runs on a fresh pool, so the workers of earlier
+     * searches are forgotten.
+     */
+    public synchronized void begin() {
+        startTime = System.nanoTime();
+        lastTime = startTime;
+        lastNodes = getNodes();
+        WORKERS.clear();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, replacing the
+     * metrics of an earlier search.
+     * @return the name the metrics were registered under
+     * @throws JMException
+     * if the metrics cannot be registered
+     */
+    public ObjectName register() throws JMException {
+        ObjectName name = new ObjectName("tableaucounter:type=SearchMetrics");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if(server.isRegistered(name))
+            server.unregisterMBean(name);
+        server.registerMBean(this, name);
+        return name;
+    }
+
+    /**
+     * Records that the calling worker started searching a subtree.
+     * @param prefix
+     * the entries every tableau of the subtree begins with
+     */
+    void start(int[] prefix) {
+        Worker worker = WORKER.get();
+        worker.prefix = prefix;
+        worker.since = System.nanoTime() | 1L;
+    }
+
+    /**
+     * Records that the calling worker finished its subtree.
+     */
+    void stop() {
+        Worker worker = WORKER.get();
+        worker.busy += System.nanoTime() - worker.since;
+        worker.since = 0L;
+    }
+
+    void add(long[] nodes, long[] pruned, long[] backtracks, long tableaux) {
+        for(int i = 0; i < nodes.length; i++) {
+            if(nodes[i] != 0L)
+                NODES_AT.addAndGet(i, nodes[i]);
+            if(pruned[i] != 0L)
+                PRUNED_AT.addAndGet(i, pruned[i]);
+            if(backtracks[i] != 0L)
+                BACKTRACKS_AT.addAndGet(i, backtracks[i]);
+        }
+        TABLEAUX.add(tableaux);
+    }
+
+    @Override
+    public long getNodes() {return sum(NODES_AT);}
+
+    @Override
+    public long getPruned() {return sum(PRUNED_AT);}
+
+    @Override
+    public long getBacktracks() {return sum(BACKTRACKS_AT);}
+
+    @Override
+    public long getTableaux() {return TABLEAUX.sum();}
+
+    @Override
+    public double getNodesPerSecond() {
+        return getNodes() * 1e9 / Math.max(1L, System.nanoTime() - startTime);
+    }
+
+    @Override
+    public long[] getNodesByDepth() {return copy(NODES_AT);}
+
+    @Override
+    public long[] getPrunedByDepth() {return copy(PRUNED_AT);}
+
+    @Override
+    public long[] getBacktracksByDepth() {return copy(BACKTRACKS_AT);}
+
+    @Override
+    public double[] getWorkerUtilization() {
+        long now = System.nanoTime();
+        double elapsed = Math.max(1L, now - startTime);
+        double[] utilization = new double[WORKERS.size()];
+        for(int i = 0; i < utilization.length; i++) {
+            utilization[i] = WORKERS.get(i).busy(now) / elapsed;
+        }
+        return utilization;
+    }
+
+    @Override
+    public String[] getStragglers() {
+        long now = System.nanoTime();
+        ArrayList<String> stragglers = new ArrayList<>();
+        boolean idle = false;
+        for(Worker worker : WORKERS) {
+            if(worker.since == 0L)
+                idle = true;
+        }
+        if(!idle)
+            return new String[0];
+        for(Worker worker : WORKERS) {
+            long since = worker.since;
+            if(since != 0L && now - since >= STRAGGLER_NANOS)
+                stragglers.add(worker.NAME + " has searched below [" +
+                        join(worker.prefix) + "] for " + (now - since) /
+                        1000000000L + "s");
+        }
+        return stragglers.toArray(new String[0]);
+    }
+
+    /**
+     * Sums up the search since the last call: its rate, how busy each worker
+     * was, and which subtrees are holding it up.
+     * @return a single line of progress
+     */
+    public synchronized String progress() {
+        long now = System.nanoTime(), nodes = getNodes();
+        double interval = Math.max(1L, now - lastTime);
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("%ds: %d nodes at %.3g/s, %d tableaux",
+                (now - startTime) / 1000000000L, nodes,
+                (nodes - lastNodes) * 1e9 / interval, getTableaux()));
+        if(!WORKERS.isEmpty()) {
+            s.append("; workers");
+            for(Worker worker : WORKERS) {
+                long busy = worker.busy(now);
+                s.append(String.format(" %.0f%%",
+                        100.0 * (busy - worker.reported) / interval));
+                worker.reported = busy;
+            }
+        }
+        for(String straggler : getStragglers()) {
+            s.append("; ").append(straggler);
+        }
+        lastTime = now;
+        lastNodes = nodes;
+        return s.toString();
+    }
+
+    private static long sum(AtomicLongArray counts) {
+        long total = 0L;
+        for(int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    private static long[] copy(AtomicLongArray counts) {
+        long[] copy = new long[counts.length()];
+        for(int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    private static String join(int[] prefix) {
+        StringBuilder s = new StringBuilder();
+        for(int i = 0; i < prefix.length; i++) {
+            if(i > 0)
+                s.append(',');
+            s.append(prefix[i]);
+        }
+        return s.toString();
+    }
+
+    /**
+     * How long one worker thread has spent searching, and what it searches.
+     */
+    private static final class Worker {
+
+        private final String NAME;
+        private volatile long busy;  //In finished subtrees
+        private volatile long since;  //Start of the current subtree, or 0
+        private volatile int[] prefix;  //Of the current subtree
+        private long reported;  //Busy time at the last progress line
+
+        Worker(String name) {
+            this.NAME = name;
+        }
+
+        long busy(long now) {
+            long s = since;
+            return busy + (s != 0L ? now - s : 0L);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package tableaucounter;
+
+/**
+ * The management interface of {@link SearchMetrics}, so a running search can
+ * be watched from JConsole or any other JMX client.
+ * @author Benjamin Levandowski
+ */
+public interface SearchMetricsMBean {
+
+    /**
+     * Returns the number of search tree nodes visited so far.
+     * @return the number of visited nodes
+     */
+    long getNodes();
+
+    /**
+     * Returns the number of entries the lookahead rejected so far.
+     * @return the number of pruned nodes
+     */
+    long getPruned();
+
+    /**
+     * Returns the number of times the search ran out of values for an entry
+     * and went back to the one before it.
+     * @return the number of backtracks
+     */
+    long getBacktracks();
+
+    /**
+     * Returns the number of tableaux found so far.
+     * @return the number of tableaux
+     */
+    long getTableaux();
+
+    /**
+     * Returns the average number of nodes visited per second since the
+     * search started.
+     * @return the search rate
+     */
+    double getNodesPerSecond();
+
+    /**
+     * Returns the number of nodes visited at each working index.
+     * @return the visited nodes by depth
+     */
+    long[] getNodesByDepth();
+
+    /**
+     * Returns the number of entries the lookahead rejected at each working
+     * index.
+     * @return the pruned nodes by depth
+     */
+    long[] getPrunedByDepth();
+
+    /**
+     * Returns the number of backtracks from each working index.
+     * @return the backtracks by depth
+     */
+    long[] getBacktracksByDepth();
+
+    /**
+     * Returns the fraction of time each worker thread has spent searching
+     * since the search started, in the order the workers first searched.
+     * @return the utilization of each worker
+     */
+    double[] getWorkerUtilization();
+
+    /**
+     * Describes the subtrees that have been searched for much longer than
+     * the others while some workers sit idle.
+     * @return one line for each straggling worker
+     */
+    String[] getStragglers();
+}
@@ -0,0 +1,453 @@
+package tableaucounter;
+
+import java.util.*;
+
+/**
+ * The depth first search shared by every counter.  Unused values are kept in
+ * a bitmask, so finding the next larger free value for the working index is a
+ * couple of word operations, and stepping through the tree allocates nothing.
+ * <p>
+ * The free values an entry may take are the same every time the search comes
+ * back to it, so its bounds and the lookahead are worked out once, when the
+ * entry is first reached.  Both checks of the lookahead turn into bounds: too
+ * few free values above a candidate only happens above some value, and
+ * placing a candidate only starves later entries when it is not above some
+ * value.  Every free value between the bounds is then a valid candidate, and
+ * the next one is found in the bitmask directly.  Setting the system property
+ * tableaucounter.scalar to true checks every candidate on its own instead.
+ * @author Benjamin Levandowski
+ */
+public final class SearchState {
+
+    private static final boolean SCALAR_BY_DEFAULT = Boolean.getBoolean(
+            "tableaucounter.scalar");
+
+    private final int[] OFFSETS, OTHERS, MAXIMA;  //Compiled rules
+    private final Lookahead AHEAD;  //Null when not looking ahead
+    private final boolean SCALAR;  //Check each candidate on its own
+    private final int N;
+    private final int[] ENTRIES;
+    private final long[] FREE;  //Bit v is set while value v is unused
+    private int w, base;  //Working index, first index this search may change
+    private int low, high;  //Set by bound(w)
+    private int changed;  //First entry changed by the last call to next
+    private long nodes, pruned;  //Counted before the last drain
+    //Counted at each working index since the last drain
+    private final long[] NODES_AT, PRUNED_AT, BACKTRACKS_AT;
+    //The candidates of each entry, worked out when it was first reached
+    private final int[] LOW_AT, HIGH_AT;
+    private final boolean[] STALE;  //Reached before rebase(int)
+
+    /**
+     * Creates an empty search over every tableau of a given shape that looks
+     * ahead to prune branches that cannot be finished.
+     * @param tableau
+     * the shape of the tableau to search
+     */
+    public SearchState(Tableau tableau) {
+        this(tableau, true);
+    }
+
+    /**
+     * Creates an empty search over every tableau of a given shape.
+     * @param tableau
+     * the shape of the tableau to search
+     * @param lookahead
+     * true to reject an entry when the free values left cannot fill the
+     * entries after it, not only when it breaks a rule with earlier entries
+     */
+    public SearchState(Tableau tableau, boolean lookahead) {
+        this(tableau, lookahead, SCALAR_BY_DEFAULT);
+    }
+
+    /**
+     * Creates an empty search over every tableau of a given shape, choosing
+     * how the lookahead is checked regardless of
+     * {@code -Dtableaucounter.scalar}.
+     * @param tableau
+     * the shape of the tableau to search
+     * @param lookahead
+     * true to reject an entry when the free values left cannot fill the
+     * entries after it
+     * @param scalar
+     * true to check every candidate on its own instead of narrowing the
+     * candidates of an entry once
+     */
+    SearchState(Tableau tableau, boolean lookahead, boolean scalar) {
+        SCALAR = scalar;
+        CompiledRules rules = tableau.getCompiledRules();
+        OFFSETS = rules.getOffsets();
+        OTHERS = rules.getOthers();
+        MAXIMA = rules.getMaxima();
+        AHEAD = lookahead ? tableau.getLookahead() : null;
+        N = tableau.getN();
+        ENTRIES = new int[N];
+        FREE = new long[((N + 1) >>> 6) + 1];
+        NODES_AT = new long[N];
+        PRUNED_AT = new long[N];
+        BACKTRACKS_AT = new long[N];
+        LOW_AT = new int[N];
+        HIGH_AT = new int[N];
+        STALE = new boolean[N];
+        reset(ENTRIES, 0);
+    }
+
+    /**
+     * Restarts the search below a fixed prefix.  Only entries after the
+     * prefix are changed by {@link #next(int)}.
+     * @param prefix
+     * the first entries of every tableau this search will find
+     * @param length
+     * the number of entries of the prefix to use
+     * @return false if the prefix already breaks a rule, in which case the
+     * search is empty
+     */
+    public boolean reset(int[] prefix, int length) {
+        Arrays.fill(FREE, 0L);
+        for(int v = 2; v <= N + 1; v++) {
+            FREE[v >>> 6] |= 1L << v;
+        }
+        for(int i = 0; i < length; i++) {
+            ENTRIES[i] = prefix[i];
+        }
+        for(int i = length; i < N; i++) {
+            ENTRIES[i] = -1;
+        }
+        base = length;
+        w = length;
+        for(int i = 0; i < length; i++) {
+            int v = ENTRIES[i];
+            if(v < 2 || v > N + 1 || (FREE[v >>> 6] & (1L << v)) == 0 ||
+                    !valid(i)) {
+                w = -1;
+                return false;
+            }
+            FREE[v >>> 6] &= ~(1L << v);
+        }
+        return true;
+    }
+
+    /**
+     * Continues a search from a complete tableau reached earlier.  Call
+     * {@link #reset(int[], int)} with every entry of that tableau first, then
+     * this with the length of the prefix that search was started below.
+     * @param length
+     * the number of fixed entries of the original search
+     */
+    public void rebase(int length) {
+        if(w < 0)
+            return;
+        base = length;
+        w = N - 1;
+        Arrays.fill(STALE, true);
+    }
+
+    /**
+     * Moves to the next valid assignment of the entries between the prefix
+     * and a given depth, in increasing lexicographic order.  With a depth of
+     * {@code getN()} every call lands on a complete tableau.  The depth must
+     * stay the same until the next {@link #reset(int[], int)}.
+     * @param depth
+     * one past the last entry to fill in
+     * @return false once every assignment below the prefix has been visited
+     */
+    public boolean next(int depth) {
+        if(w < base)
+            return false;
+        changed = w;
+        if(base == depth) {  //Nothing to fill, so the prefix is the only leaf
+            w = -1;
+            return true;
+        }
+        while(w >= base) {
+            if(w < changed)
+                changed = w;
+            int v = ENTRIES[w];
+            if(v > 0)
+                FREE[v >>> 6] |= 1L << v;
+            if(!SCALAR) {
+                if(v < 0 || STALE[w]) {
+                    bound(w);
+                    if(AHEAD != null)
+                        narrow(w, v);
+                    LOW_AT[w] = low;
+                    HIGH_AT[w] = high;
+                    STALE[w] = false;
+                }
+                v = nextFree(Math.max(v, LOW_AT[w]) + 1, HIGH_AT[w]);
+            } else {
+                bound(w);
+                v = nextFree(Math.max(v, low) + 1, high);
+            }
+            while(SCALAR && v > 0 && AHEAD != null) {
+                //Larger values leave even fewer free values above them
+                if(countAbove(v) < AHEAD.SUCCESSORS[w]) {
+                    PRUNED_AT[w]++;
+                    v = -1;
+                    break;
+                }
+                FREE[v >>> 6] &= ~(1L << v);
+                if(fits(w))
+                    break;
+                FREE[v >>> 6] |= 1L << v;
+                PRUNED_AT[w]++;
+                v = nextFree(v + 1, high);
+            }
+            if(v < 0) {
+                BACKTRACKS_AT[w]++;
+                ENTRIES[w--] = -1;
+                continue;
+            }
+            ENTRIES[w] = v;
+            FREE[v >>> 6] &= ~(1L << v);
+            NODES_AT[w]++;
+            if(w == depth - 1)
+                return true;
+            w++;
+        }
+        return false;
+    }
+
+    /**
+     * Lists the values the first unfilled entry may take, passing the same
+     * checks {@link #next(int)} would.  Together with {@link #place(int)}
+     * this walks a single path down the tree, for sampling it.
+     * @param values
+     * where the values are written, with room for {@code getN()} of them
+     * @return the number of values written, 0 once every entry is filled
+     */
+    public int candidates(int[] values) {
+        if(w < 0 || w >= N)
+            return 0;
+        bound(w);
+        int k = 0;
+        for(int v = nextFree(low + 1, high); v > 0;
+                v = nextFree(v + 1, high)) {
+            if(AHEAD != null) {
+                if(countAbove(v) < AHEAD.SUCCESSORS[w])
+                    break;
+                FREE[v >>> 6] &= ~(1L << v);
+                boolean fits = fits(w);
+                FREE[v >>> 6] |= 1L << v;
+                if(!fits)
+                    continue;
+            }
+            values[k++] = v;
+        }
+        return k;
+    }
+
+    /**
+     * Fills the first unfilled entry with one of the values from
+     * {@link #candidates(int[])}.  Call {@link #reset(int[], int)} before
+     * using {@link #next(int)} again.
+     * @param v
+     * the value to place
+     */
+    public void place(int v) {
+        ENTRIES[w] = v;
+        FREE[v >>> 6] &= ~(1L << v);
+        w++;
+    }
+
+    /**
+     * Returns the number of entries filled in so far.
+     * @return the depth of the search
+     */
+    public int getDepth() {
+        return w < 0 ? 0 : w;
+    }
+
+    /**
+     * Counts every complete tableau below the prefix.  This consumes the
+     * search.
+     * @return the number of tableaux below the prefix
+     */
+    public long countAll() {
+        long found = 0L;
+        while(next(N)) {
+            found++;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the first entry the last call to {@link #next(int)} changed.
+     * Every entry before it is the same as at the tableau found before, so
+     * writers only need to redo what comes after it.
+     * @return the index of the first changed entry
+     */
+    public int getChanged() {return changed;}
+
+    /**
+     * Returns the live entries of the search.  Entries that have not been
+     * filled in are -1.  The array is reused, so copy it before keeping it.
+     * @return the current entries
+     */
+    public int[] getEntries() {return ENTRIES;}
+
+    /**
+     * Returns the number of nodes of the search tree visited so far, that is,
+     * the number of times an entry was given a value that kept it valid.
+     * @return the number of visited nodes
+     */
+    public long getNodes() {return nodes + sum(NODES_AT);}
+
+    /**
+     * Returns the number of times looking ahead rejected an entry that broke
+     * no rule with the earlier entries.  Every one of them would have been
+     * the root of a dead subtree without the lookahead.
+     * @return the number of pruned nodes
+     */
+    public long getPruned() {return pruned + sum(PRUNED_AT);}
+
+    /**
+     * Returns the number of varying entries in each tableau.
+     * @return the number of entries
+     */
+    public int getN() {return N;}
+
+    /**
+     * Adds the counts at each working index gathered since the last drain to
+     * a set of metrics, and starts them over.  The totals returned by
+     * {@link #getNodes()} and {@link #getPruned()} keep counting.
+     * @param metrics
+     * where the counts are added
+     * @param tableaux
+     * the number of tableaux found since the last drain
+     */
+    void drainTo(SearchMetrics metrics, long tableaux) {
+        nodes += sum(NODES_AT);
+        pruned += sum(PRUNED_AT);
+        metrics.add(NODES_AT, PRUNED_AT, BACKTRACKS_AT, tableaux);
+        Arrays.fill(NODES_AT, 0L);
+        Arrays.fill(PRUNED_AT, 0L);
+        Arrays.fill(BACKTRACKS_AT, 0L);
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0L;
+        for(long c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    private int nextFree(int from, int max) {
+        int i = from >>> 6;
+        if(from > max || i >= FREE.length)
+            return -1;
+        long word = FREE[i] & (-1L << from);
+        while(word == 0L) {
+            if(++i >= FREE.length)
+                return -1;
+            word = FREE[i];
+        }
+        int v = (i << 6) + Long.numberOfTrailingZeros(word);
+        return v <= max ? v : -1;
+    }
+
+    //Every free value from low + 1 to high keeps entry w valid
+    private void bound(int w) {
+        low = 1;
+        high = Math.min(MAXIMA[w], N + 1);
+        for(int i = OFFSETS[w]; i < OFFSETS[w + 1]; i++) {
+            int o = OTHERS[i];
+            if(o >= 0) {
+                if(ENTRIES[o] > low)
+                    low = ENTRIES[o];
+            } else if(ENTRIES[~o] > 0 && ENTRIES[~o] <= high)
+                high = ENTRIES[~o] - 1;
+        }
+    }
+
+    //Narrows low and high from bound(w) to the values the lookahead keeps,
+    //counting the candidates above from it rules out the way the scalar
+    //checks would
+    private void narrow(int w, int from) {
+        //Every value above the s-th largest free value has too few above it
+        int s = AHEAD.SUCCESSORS[w], cut = high;
+        if(s > 0) {
+            int i = FREE.length - 1, c;
+            while(i >= 0 && (c = Long.bitCount(FREE[i])) < s) {
+                s -= c;
+                i--;
+            }
+            if(i < 0)
+                cut = low;
+            else {
+                long word = FREE[i];
+                while(--s > 0) {
+                    word &= ~Long.highestOneBit(word);
+                }
+                cut = Math.min(high, (i << 6) + 63 -
+                        Long.numberOfLeadingZeros(word) - 1);
+            }
+        }
+        //Taking a value up to a limit leaves one less free value below it, so
+        //a limit with no free values to spare needs a larger value
+        final int[] limits = AHEAD.LIMITS[w], needed = AHEAD.NEEDED[w];
+        int floor = low, i = 0, c = 0;
+        for(int k = 0; k < limits.length; k++) {
+            int t = Math.min(limits[k], N + 1);
+            while(i < t >>> 6) {
+                c += Long.bitCount(FREE[i++]);
+            }
+            int spare = c + Long.bitCount(FREE[i] & (-1L >>> (63 - (t & 63))))
+                    - needed[k];
+            if(spare < 0)
+                floor = Integer.MAX_VALUE;
+            else if(spare == 0 && t > floor)
+                floor = t;
+        }
+        //The scalar checks reject each candidate above from up to the floor,
+        //and stop once at the first one above the cut
+        from = Math.max(low, from);
+        PRUNED_AT[w] += countAbove(from) -
+                countAbove(Math.max(from, Math.min(floor, cut)));
+        if(countAbove(Math.max(from, cut)) > countAbove(high))
+            PRUNED_AT[w]++;
+        low = Math.max(low, Math.min(floor, cut));
+        high = cut;
+    }
+
+    private int countAbove(int v) {
+        int i = v >>> 6;
+        int c = Long.bitCount(FREE[i] & (-2L << (v & 63)));
+        while(++i < FREE.length) {
+            c += Long.bitCount(FREE[i]);
+        }
+        return c;
+    }
+
+    //Each entry after w needs its own free value no larger than its maximum
+    private boolean fits(int w) {
+        final int[] limits = AHEAD.LIMITS[w], needed = AHEAD.NEEDED[w];
+        int i = 0, c = 0;
+        for(int k = 0; k < limits.length; k++) {
+            int t = Math.min(limits[k], N + 1);
+            while(i < t >>> 6) {
+                c += Long.bitCount(FREE[i++]);
+            }
+            if(c + Long.bitCount(FREE[i] & (-1L >>> (63 - (t & 63)))) <
+                    needed[k])
+                return false;
+        }
+        return true;
+    }
+
+    private boolean valid(int w) {
+        int v = ENTRIES[w];
+        if(v > MAXIMA[w])
+            return false;
+        for(int i = OFFSETS[w]; i < OFFSETS[w + 1]; i++) {
+            int o = OTHERS[i];
+            if(o >= 0) {
+                if(ENTRIES[o] > v)
+                    return false;
+            } else if(ENTRIES[~o] > 0 && ENTRIES[~o] < v)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,281 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Writes every tableau of a given shape from the work-stealing search of
+ * {@link ForkJoinCounter}.  Each worker thread streams into its own shard,
+ * output-000.txt, output-001.txt and so on.  A subtree is always written by
+ * one worker from start to end, so its tableaux stay in the same order
+ * {@link Counter} writes them, and output-index.txt records where in which
+ * shard each subtree ended up.
+ * {@link #merge(Path)} uses the index to put the shards back together into a
+ * single file identical to the one {@link Counter} writes.
+ * @author Benjamin Levandowski
+ */
+public class ShardedWriter implements SubtreeSink {
+
+    private static final String INDEX = "output-index.txt";
+
+    private final Tableau TABLEAU;
+    private final int P;  //Parallelism
+    private final Path DIRECTORY;
+    private final ConcurrentHashMap<Thread, Shard> SHARDS =
+            new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Piece> PIECES =
+            new ConcurrentLinkedQueue<>();
+    private final AtomicInteger NEXT_SHARD = new AtomicInteger();
+
+    /**
+     * Creates a writer for a given tableau shape.
+     * @param tableau
+     * the shape of the tableaux to write
+     * @param parallelism
+     * the number of worker threads, and so at most the number of shards
+     * @param directory
+     * where the shards and their index are written
+     */
+    public ShardedWriter(Tableau tableau, int parallelism, Path directory) {
+        if(parallelism < 1)
+            throw new RejectedExecutionException("Parallelism must be at "
+                    + "least 1");
+        this.TABLEAU = tableau;
+        P = parallelism;
+        DIRECTORY = directory;
+    }
+
+    /**
+     * Writes every tableau of this shape to the shards.
+     * @return the number of tableaux written
+     * @throws IOException
+     * if a shard or the index cannot be written
+     */
+    public long count() throws IOException {
+        ForkJoinCounter counter = new ForkJoinCounter(TABLEAU, P);
+        counter.setSink(this);
+        long total;
+        try {
+            total = counter.count();
+        } finally {
+            for(Shard shard : SHARDS.values()) {
+                shard.close();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                DIRECTORY.resolve(INDEX))) {
+            for(Piece piece : PIECES) {
+                writer.write(piece + "\n");
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Starts writing a subtree to the calling worker's shard.
+     * @param prefix
+     * the first entries of every tableau of the subtree
+     * @return the sink writing to the worker's shard
+     * @throws IOException
+     * if the shard cannot be created
+     */
+    @Override
+    public TableauSink begin(int[] prefix) throws IOException {
+        Shard shard = shard();
+        shard.start = shard.offset;
+        return shard.SINK;
+    }
+
+    /**
+     * Records where in the calling worker's shard a subtree was written.
+     * @param prefix
+     * the first entries of every tableau of the subtree
+     * @param count
+     * the number of tableaux the subtree held
+     */
+    @Override
+    public void end(int[] prefix, long count) {
+        Shard shard = SHARDS.get(Thread.currentThread());
+        if(count > 0)
+            PIECES.add(new Piece(prefix, shard.ID, shard.start,
+                    shard.offset - shard.start, count));
+    }
+
+    /**
+     * Returns the number of shards written.
+     * @return the number of shard files
+     */
+    public int getShards() {
+        return SHARDS.size();
+    }
+
+    /**
+     * Concatenates the shards in a directory into output.txt, in the same
+     * order {@link Counter} writes the tableaux, and removes the shards.
+     * @param directory
+     * where the shards and their index were written
+     * @return the number of tableaux in the merged file
+     * @throws IOException
+     * if the shards cannot be read or output.txt cannot be written
+     */
+    public static long merge(Path directory) throws IOException {
+        ArrayList<Piece> pieces = new ArrayList<>();
+        for(String line : Files.readAllLines(directory.resolve(INDEX),
+                StandardCharsets.UTF_8)) {
+            pieces.add(Piece.parse(line));
+        }
+        pieces.sort(null);
+        TreeSet<Integer> used = new TreeSet<>();
+        long total = 0L;
+        try (FileChannel out = FileChannel.open(
+                directory.resolve("output.txt"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            HashMap<Integer, FileChannel> shards = new HashMap<>();
+            try {
+                for(Piece piece : pieces) {
+                    FileChannel in = shards.get(piece.SHARD);
+                    if(in == null) {
+                        in = FileChannel.open(directory.resolve(
+                                name(piece.SHARD)));
+                        shards.put(piece.SHARD, in);
+                    }
+                    long done = 0L;
+                    while(done < piece.LENGTH) {
+                        done += in.transferTo(piece.OFFSET + done,
+                                piece.LENGTH - done, out);
+                    }
+                    used.add(piece.SHARD);
+                    total += piece.COUNT;
+                }
+            } finally {
+                for(FileChannel in : shards.values()) {
+                    in.close();
+                }
+            }
+            out.write(StandardCharsets.US_ASCII.encode("There are " + total +
+                    " tableaux of this shape."));
+        }
+        for(int shard : used) {
+            Files.delete(directory.resolve(name(shard)));
+        }
+        Files.delete(directory.resolve(INDEX));
+        return total;
+    }
+
+    private static String name(int shard) {
+        return String.format("output-%03d.txt", shard);
+    }
+
+    private Shard shard() throws IOException {
+        try {
+            return SHARDS.computeIfAbsent(Thread.currentThread(), t -> {
+                int id = NEXT_SHARD.getAndIncrement();
+                try {
+                    return new Shard(id, new BufferedWriter(
+                            new OutputStreamWriter(Files.newOutputStream(
+                            DIRECTORY.resolve(name(id))),
+                            StandardCharsets.US_ASCII), 1 << 16));
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One worker's output file and how much has been written to it.  The
+     * text is ASCII, so every character written is one byte of the file.
+     */
+    private final class Shard extends Writer {
+
+        private final int ID;
+        private final Writer OUT;
+        private final TextSink SINK;
+        private long offset, start;  //Written, where the subtree started
+
+        Shard(int id, Writer out) {
+            this.ID = id;
+            this.OUT = out;
+            SINK = new TextSink(TABLEAU, this);
+        }
+
+        @Override
+        public void write(char[] text, int from, int length) throws
+                IOException {
+            OUT.write(text, from, length);
+            offset += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            OUT.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            OUT.close();
+        }
+    }
+
+    /**
+     * Where the tableaux of one subtree were written.
+     */
+    private static final class Piece implements Comparable<Piece> {
+
+        private final int[] PREFIX;
+        private final int SHARD;
+        private final long OFFSET, LENGTH, COUNT;
+
+        Piece(int[] prefix, int shard, long offset, long length, long count) {
+            this.PREFIX = prefix;
+            this.SHARD = shard;
+            this.OFFSET = offset;
+            this.LENGTH = length;
+            this.COUNT = count;
+        }
+
+        static Piece parse(String line) {
+            String[] parts = line.split(" ", -1);
+            String[] values = parts[0].isEmpty() ? new String[0] :
+                    parts[0].split(",");
+            int[] prefix = new int[values.length];
+            for(int i = 0; i < prefix.length; i++) {
+                prefix[i] = Integer.parseInt(values[i]);
+            }
+            return new Piece(prefix, Integer.parseInt(parts[1]),
+                    Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                    Long.parseLong(parts[4]));
+        }
+
+        //Subtrees never contain each other, so this is the order they are
+        //found in
+        @Override
+        public int compareTo(Piece o) {
+            for(int i = 0; i < PREFIX.length && i < o.PREFIX.length; i++) {
+                if(PREFIX[i] != o.PREFIX[i])
+                    return Integer.compare(PREFIX[i], o.PREFIX[i]);
+            }
+            return Integer.compare(PREFIX.length, o.PREFIX.length);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            for(int i = 0; i < PREFIX.length; i++) {
+                if(i > 0)
+                    s.append(',');
+                s.append(PREFIX[i]);
+            }
+            return s + " " + SHARD + " " + OFFSET + " " + LENGTH + " " +
+                    COUNT;
+        }
+    }
+}
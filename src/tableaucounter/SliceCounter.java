@@ -0,0 +1,178 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Counts one of k slices of a search, so one shape can be counted by k
+ * processes at once, on one machine or many.  Every process cuts the search
+ * tree the same way: {@link TreeEstimator#partition(int, long)} with a fixed
+ * seed always gives the same subtrees for the same shape, and slice i takes
+ * every k-th of them starting from the i-th.  Each slice writes its count to
+ * slice-i-of-k.txt, and {@link #merge(Path, Tableau)} checks that all k
+ * slices of the same cut are there before adding them up.
+ * @author Benjamin Levandowski
+ */
+public class SliceCounter {
+
+    private static final int UNITS_PER_SLICE = 32;
+    private static final long UNIT_PROBES = 256;
+
+    private final Tableau TABLEAU;
+    private final int INDEX, SLICES, P;  //Slice from 1, slices, parallelism
+    private final List<int[]> UNITS;
+    private final String CUT;  //Names the cut, so other cuts are refused
+
+    /**
+     * Cuts a search into slices.
+     * @param tableau
+     * the shape being counted
+     * @param index
+     * which slice this process counts, from 1 to slices
+     * @param slices
+     * how many slices the search is cut into
+     * @param parallelism
+     * the number of worker threads this process uses
+     */
+    public SliceCounter(Tableau tableau, int index, int slices,
+            int parallelism) {
+        if(slices < 1 || index < 1 || index > slices)
+            throw new RejectedExecutionException("Slice " + index + "/" +
+                    slices + " does not exist");
+        this.TABLEAU = tableau;
+        INDEX = index;
+        SLICES = slices;
+        P = parallelism;
+        UNITS = new TreeEstimator(TABLEAU, 0L).partition(
+                UNITS_PER_SLICE * slices, UNIT_PROBES);
+        long hash = 0xcbf29ce484222325L;
+        for(int[] unit : UNITS) {
+            for(int e : unit) {
+                hash = (hash ^ e) * 0x100000001b3L;
+            }
+            hash = (hash ^ -1) * 0x100000001b3L;
+        }
+        CUT = UNITS.size() + " " + Long.toHexString(hash);
+    }
+
+    /**
+     * Counts every tableau of this process's slice.
+     * @return the number of tableaux in the slice
+     */
+    public long count() {
+        ArrayList<int[]> mine = new ArrayList<>();
+        for(int i = INDEX - 1; i < UNITS.size(); i += SLICES) {
+            mine.add(UNITS.get(i));
+        }
+        ForkJoinCounter counter = new ForkJoinCounter(TABLEAU, P);
+        ForkJoinPool pool = new ForkJoinPool(P);
+        try {
+            return pool.invoke(counter.countTask(mine));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes the count of this slice to slice-i-of-k.txt.
+     * @param directory
+     * where the partial result is written
+     * @param count
+     * the number of tableaux in the slice
+     * @return the written file
+     * @throws IOException
+     * if the file cannot be written
+     */
+    public Path write(Path directory, long count) throws IOException {
+        Path file = directory.resolve("slice-" + INDEX + "-of-" + SLICES +
+                ".txt");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, Arrays.asList("shape " + TABLEAU.describe(),
+                "slice " + INDEX + "/" + SLICES, "cut " + CUT,
+                "count " + count), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /**
+     * Adds up the partial results of every slice in a directory.
+     * @param directory
+     * where the slices wrote their partial results
+     * @param tableau
+     * the shape that was counted
+     * @return the number of tableaux of the shape
+     * @throws IOException
+     * if a partial result cannot be read
+     * @throws RejectedExecutionException
+     * if a slice is missing, counted twice, malformed, or belongs to another
+     * shape or another cut
+     */
+    public static long merge(Path directory, Tableau tableau) throws
+            IOException {
+        String shape = tableau.describe(), cut = null;
+        TreeMap<Integer, Long> counts = new TreeMap<>();
+        int slices = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "slice-*-of-*.txt")) {
+            for(Path file : files) {
+                List<String> lines = Files.readAllLines(file,
+                        StandardCharsets.UTF_8);
+                if(lines.size() < 4 ||
+                        !lines.get(0).equals("shape " + shape))
+                    throw new RejectedExecutionException(file + " was "
+                            + "written for a different tableau");
+                int[] slice = parseSlice(lines.get(1).startsWith("slice ") ?
+                        lines.get(1).substring(6) : "");
+                if(slice == null || !lines.get(2).startsWith("cut ") ||
+                        !lines.get(3).matches("count \\d{1,18}"))
+                    throw new RejectedExecutionException(file + " is not a "
+                            + "slice count");
+                int index = slice[0], k = slice[1];
+                if(index < 1 || index > k)
+                    throw new RejectedExecutionException(file + " names a "
+                            + "slice that does not exist");
+                if(slices < 0) {
+                    slices = k;
+                    cut = lines.get(2);
+                } else if(k != slices || !lines.get(2).equals(cut))
+                    throw new RejectedExecutionException(file + " is a "
+                            + "slice of a different cut");
+                if(counts.put(index, Long.parseLong(lines.get(3)
+                        .substring(6))) != null)
+                    throw new RejectedExecutionException("Slice " + index +
+                            " was counted twice");
+            }
+        }
+        if(slices < 0)
+            throw new RejectedExecutionException("No slices were found in " +
+                    directory.toAbsolutePath());
+        long total = 0L;
+        for(int i = 1; i <= slices; i++) {
+            Long count = counts.get(i);
+            if(count == null)
+                throw new RejectedExecutionException("Slice " + i + "/" +
+                        slices + " is missing");
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Reads which slice of how many a text like "2/5" names.
+     * @param text
+     * the slice and the number of slices, separated by "/"
+     * @return the slice and the number of slices, or null if the text does
+     * not name them
+     */
+    public static int[] parseSlice(String text) {
+        if(!text.matches("\\d{1,9}/\\d{1,9}"))
+            return null;
+        String[] parts = text.split("/");
+        return new int[] {Integer.parseInt(parts[0]),
+                Integer.parseInt(parts[1])};
+    }
+}
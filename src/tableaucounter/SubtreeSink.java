@@ -0,0 +1,35 @@
+package tableaucounter;
+
+import java.io.*;
+
+/**
+ * Receives the tableaux of a search that {@link ForkJoinCounter} splits into
+ * subtrees.  Each subtree is searched from start to end by one worker
+ * thread, between a call to {@link #begin(int[])} and a call to
+ * {@link #end(int[], long)} on that thread, so a sink kept for each worker
+ * gets the tableaux of a subtree in order and unbroken.
+ * @author Benjamin Levandowski
+ */
+public interface SubtreeSink {
+
+    /**
+     * Starts a subtree on the calling thread.
+     * @param prefix
+     * the first entries of every tableau of the subtree
+     * @return where the tableaux of the subtree go
+     * @throws IOException
+     * if the subtree cannot be started
+     */
+    TableauSink begin(int[] prefix) throws IOException;
+
+    /**
+     * Ends the subtree last started on the calling thread.
+     * @param prefix
+     * the first entries of every tableau of the subtree
+     * @param count
+     * the number of tableaux the subtree held
+     * @throws IOException
+     * if the subtree cannot be finished
+     */
+    void end(int[] prefix, long count) throws IOException;
+}
@@ -1,296 +1,371 @@
-package tableaucounter;
-
-import java.util.*;
-import java.util.concurrent.*;
-import java.util.stream.*;
-
-/**
- * Takes in a text file describing the Young Tableau shape and its cell weights.
- * From here, it is flattened in to a 1D integer array and a list of rules
- * based on the shape.
- * @author Benjamin Levandowski
- */
-public final class Tableau {
-    private final int[] SHAPE;
-    private final int[] WEIGHT;
-    private final int[][][] SORTED_RULES;
-    private final boolean RECT;
-    
-    /**
-     * Transforms a matrix of weights into a list of rules.
-     * @param weights
-     * 2D array of tableau weights
-     */
-    public Tableau(int[][] weights) {
-        this.SHAPE = new int[weights.length];
-        int length = 0;
-        int rules[][];
-        for(int i = 0; i < weights.length; i++) {
-            SHAPE[i] = weights[i].length;
-            length += weights[i].length;
-        }
-        boolean rectangular = true;
-        for(int i = 1; i < SHAPE.length; i++) {
-            if(SHAPE[i] > SHAPE[i - 1])
-                throw new RejectedExecutionException("Row lengths must be in "
-                        + "non-increasing order.  Please use English notation");
-            rectangular = rectangular && SHAPE[i - 1] == SHAPE[i];
-        }
-        RECT = rectangular;
-        this.WEIGHT = new int[length];
-        int iterator = 0;
-        for(int[] weight : weights) {
-            for(int j = 0; j < weight.length; j++) {
-                WEIGHT[iterator++] = weight[j];
-            }
-        }
-        if(WEIGHT[0] != 1)
-            throw new RejectedExecutionException("First weight must be 1");
-        if(RECT && WEIGHT[WEIGHT.length - 1] != 1)
-            throw new RejectedExecutionException("Last weight of a rectangular "
-                    + "tableau must be 1");
-        ArrayList<Integer[]> rulesList = makeRules();
-        int minIndex = getListIndex(1, 1);
-        int maxIndex;
-        if(RECT)
-            maxIndex = IntStream.of(WEIGHT).sum() - WEIGHT[WEIGHT.length - 1];
-        else
-            maxIndex = 99;
-        //Assume top left and bottom right are fixed
-        for(int i = 0; i < rulesList.size(); i++) {
-            if(rulesList.get(i)[0] <= minIndex ||
-               rulesList.get(i)[1] <= minIndex ||
-               rulesList.get(i)[0] >= maxIndex ||
-               rulesList.get(i)[1] >= maxIndex)
-                rulesList.remove(i--);
-        }
-        rulesList.sort((a, b) -> a[0] > b[0] ? 1 : -1);
-        rules = new int[rulesList.size()][2];
-        for(int i = 0; i < rules.length; i++) {
-            rules[i] = new int[] {rulesList.get(i)[0] - 1,
-                                  rulesList.get(i)[1] - 1};
-        }
-        SORTED_RULES = sortRules(rules, weights);
-    }
-    
-    /**
-     * Prints a the tableau with a specific set of entries
-     * @param entries
-     * order of tableau entries to be printed
-     * @return
-     * the formatted tableau string
-     */
-    public String print(int[] entries) {
-        int h = 0;
-        String s = "";
-        for(int i = 0; i < SHAPE.length; i++) {
-            for(int j = 0; j < SHAPE[i]; j++) {
-                for(int k = 0; k < WEIGHT[getCellIndex(i + 1, j + 1)]; k++) {
-                    if(i == 0 && j == 0) {
-                        s += (1 + " ");
-                        break;
-                    }
-                    if(h < entries.length || !RECT)
-                        s += ((entries[h++]) + " ");
-                    else
-                        s += (entries.length + 2) + " ";
-                }
-                s += "\t";
-            }
-            s += "\n";
-        }
-        return s;
-    }
-    
-    private int getCellIndex(int row, int col) {
-        int g = 0;
-        for(int i = 0; i < row; i++) {
-            for(int j = 0; j < SHAPE[i]; j++) {
-                if(i + 1 == row && j + 1 == col)
-                    break;
-                g++;
-            }
-        }
-        return g;
-    }
-    
-    //Indices start at 1 because that's fun
-    private int getListIndex(int row, int col) {
-        int g = 0;
-        int h = 0;
-        for(int i = 0; i < row; i++) {
-            for(int j = 0; j < SHAPE[i]; j++) {
-                if(i + 1 == row && j == col)
-                    break;
-                h += WEIGHT[g++];
-            }
-        }
-        return --h;
-    }
-    
-    //Saves list of:  i must be less than j; {{i, j}, ...}
-    private ArrayList<Integer[]> makeRules() {
-        ArrayList<Integer[]> rulesList = new ArrayList<>();
-        //Column rules
-        for(int i = 1; i < SHAPE.length; i++) {
-            for(int j = 1; j <= SHAPE[i]; j++) {
-                rulesList.add(new Integer[] {getListIndex(i, j),
-                    getListIndex(i + 1, j) - WEIGHT[getCellIndex(i + 1, j)] +
-                    1});
-            }
-        }
-        
-        //Row rules
-        for(int i = 1; i <= SHAPE.length; i++) {
-            for(int j = 1; j < SHAPE[i - 1]; j++) {
-                rulesList.add(new Integer[] {getListIndex(i, j),
-                    getListIndex(i, j) + 1});
-            }
-        }
-        
-        //Cell rules
-        for(int i = 1; i <= SHAPE.length; i++) {
-            for(int j = 1; j <= SHAPE[i - 1]; j++) {
-                for(int k = 1; k < WEIGHT[getCellIndex(i, j)]; k++) {
-                    rulesList.add(new Integer[] {getListIndex(i, j) - k,
-                        getListIndex(i, j) - k + 1});
-                }
-            }
-        }
-        return rulesList;
-    }
-    
-    private int[][][] sortRules(int[][] rules, int[][] weights) {
-        int[][][] sortedRules;
-        int[] counts = new int[getN()];
-        int c;
-        for(int i = 0; i < counts.length; i++) {
-            c = 1;
-            for(int[] rule : rules) {
-                if(rule[0] == i || rule[1] == i)
-                    c++;
-            }
-            counts[i] = c;
-        }
-        sortedRules = new int[getN()][][];
-        int[] maxima = flatten(getCellMaxima(weights));
-        for(int i = 0; i < sortedRules.length; i++) {
-            c = 1;
-            sortedRules[i] = new int[counts[i]][];
-            sortedRules[i][0] = new int[] {maxima[i]};  //{99} to check
-            for(int[] rule : rules) {
-                if(rule[0] == i || rule[1] == i)
-                    sortedRules[i][c++] = rule;
-            }
-        }
-        return sortedRules;
-    }
-    
-    private int[][] getCellMaxima(int[][] weights) {
-        int[][] maxima = new int[SHAPE.length][];//Each digit has a minimum
-        maxima[0] = new int[IntStream.of(weights[0]).sum() - 1];
-        for(int i = 1; i < maxima.length - 1; i++) {
-            maxima[i] = new int[IntStream.of(weights[i]).sum()];
-        }
-        //This is what I get for adding a rectangular boolean
-        if(RECT)
-            maxima[maxima.length - 1] =
-                    new int[IntStream.of(weights[maxima.length - 1]).sum() -
-                    weights[maxima.length - 1][weights[maxima.length - 1].length
-                    - 1]];
-        else
-            maxima[maxima.length - 1] =
-                    new int[IntStream.of(weights[maxima.length - 1]).sum()];
-        int h;
-        int[][] cumulativeSums = cumulativeSums(weights);
-        for(int i = 0; i < maxima.length; i++) {  //Go through each row
-            h = 0;
-            for(int j = 0; j < weights[i].length; j++) {  //One cell at a time
-                for(int k = 1; k <= weights[i][j]; k++) {//One for each weight
-                    if((RECT && i == maxima.length - 1 && j ==
-                            weights[i].length - 1) ||
-                            (i == 0 && j == 0))
-                        break;
-                    maxima[i][h++] = k + cumulativeSums[i][j];
-                }
-            }
-        }
-        return maxima;
-    }
-    
-    private int[][] cumulativeSums(int[][] weights) {
-        int[][] ints = new int[weights.length][];
-        int sum;
-        for(int g = 0; g < ints.length; g++) {
-            ints[g] = new int[weights[g].length];
-            for(int h = 0; h < ints[g].length; h++) {
-                sum = 0;
-                for(int i = 0; i < weights.length; i++) {
-                    for(int j = 0; j < weights[i].length; j++) {
-                        if((i >= g && j > h) || (i > g && j >= h))
-                            continue;
-                        sum += weights[i][j];
-                    }
-                }
-                sum -= weights[g][h];
-                ints[g][h] = sum;
-            }
-        }
-        return ints;
-    }
-    
-    private int[] flatten(int[][] array) {
-        int[] f;
-        int s = 0;
-        for(int[] a : array) {
-            s += a.length;
-        }
-        f = new int[s];
-        s = 0;
-        for(int[] a : array) {
-            for(int j = 0; j < a.length; j++) {
-                f[s++] = a[j];
-            }
-        }
-        return f;
-    }
-    
-    /**
-     * Returns the tableau rules sorted by entry.
-     * @return
-     * A 3D array with the entry position indexed first, followed by the rules
-     * and then by the relevant entries.
-     */
-    public int[][][] getSortedRules() {return SORTED_RULES;}
-    
-    /**
-     * Returns true if the tableau is rectangular in shape.  This is unaffected
-     * by the weights.
-     * @return
-     * true if and only if the tableau is rectangular in shape
-     */
-    public boolean getRect() {return RECT;}
-    
-    /**
-     * Returns the number of potentially varying entries in a given tableau.
-     * The top left corner must always be 1, and if the tableau is
-     * rectangular, the bottom right corner must also always be 1.
-     * @return
-     * the number of varying entries
-     */
-    public int getN() {
-        if(RECT)
-            return IntStream.of(WEIGHT).sum() - 2;
-        else
-            return IntStream.of(WEIGHT).sum() - 1;
-    }//Take off ends if rectangular, take off first otherwise
-    
-    @Override
-    public String toString() {
-        int[] numbers = new int[getN()];
-        for(int i = 0; i < numbers.length; i++) {
-            numbers[i] = i + 2;
-        }
-        return print(numbers);
-    }
+package tableaucounter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Takes in a text file describing the Young Tableau shape and its cell weights.
+ * From here, it is flattened in to a 1D integer array and a list of rules
+ * based on the shape.
+ * @author Benjamin Levandowski
+ */
+public final class Tableau {
+    private final int[] SHAPE;
+    private final int[] WEIGHT;
+    private final int[][][] SORTED_RULES;
+    private final CompiledRules COMPILED;
+    private volatile Lookahead lookahead;  //Built by the first search
+    private final boolean RECT, TRANSPOSABLE;
+    private final int N;
+    
+    /**
+     * Transforms a matrix of weights into a list of rules.
+     * @param weights
+     * 2D array of tableau weights
+     */
+    public Tableau(int[][] weights) {
+        this.SHAPE = new int[weights.length];
+        int length = 0;
+        int rules[][];
+        for(int i = 0; i < weights.length; i++) {
+            SHAPE[i] = weights[i].length;
+            length += weights[i].length;
+        }
+        boolean rectangular = true;
+        for(int i = 1; i < SHAPE.length; i++) {
+            if(SHAPE[i] > SHAPE[i - 1])
+                throw new RejectedExecutionException("Row lengths must be in "
+                        + "non-increasing order.  Please use English notation");
+            rectangular = rectangular && SHAPE[i - 1] == SHAPE[i];
+        }
+        RECT = rectangular;
+        //Every cell must have a mirror image across the diagonal with the
+        //same weight
+        boolean transposable = SHAPE.length > 1;
+        for(int i = 0; i < SHAPE.length && transposable; i++) {
+            for(int j = 0; j < SHAPE[i] && transposable; j++) {
+                transposable = j < SHAPE.length && i < SHAPE[j] &&
+                        weights[i][j] == weights[j][i];
+            }
+        }
+        TRANSPOSABLE = transposable;
+        this.WEIGHT = new int[length];
+        int iterator = 0;
+        for(int[] weight : weights) {
+            for(int j = 0; j < weight.length; j++) {
+                WEIGHT[iterator++] = weight[j];
+            }
+        }
+        if(WEIGHT[0] != 1)
+            throw new RejectedExecutionException("First weight must be 1");
+        if(RECT && WEIGHT[WEIGHT.length - 1] != 1)
+            throw new RejectedExecutionException("Last weight of a rectangular "
+                    + "tableau must be 1");
+        int total = IntStream.of(WEIGHT).sum();
+        N = RECT ? total - 2 : total - 1;
+        //Where each row starts among the cells, and the list index of the
+        //last value of each cell, so no index is ever searched for
+        int[] rowStart = new int[SHAPE.length + 1];
+        for(int i = 0; i < SHAPE.length; i++) {
+            rowStart[i + 1] = rowStart[i] + SHAPE[i];
+        }
+        int[] last = new int[length];
+        for(int g = 0, h = 0; g < length; g++) {
+            h += WEIGHT[g];
+            last[g] = h - 1;
+        }
+        ArrayList<int[]> rulesList = makeRules(rowStart, last);
+        int minIndex = last[0];
+        int maxIndex;
+        if(RECT)
+            maxIndex = total - WEIGHT[WEIGHT.length - 1];
+        else
+            maxIndex = total;  //Past every list index, so nothing is fixed
+        //Assume top left and bottom right are fixed
+        rulesList.removeIf(rule -> rule[0] <= minIndex ||
+                rule[1] <= minIndex || rule[0] >= maxIndex ||
+                rule[1] >= maxIndex);
+        //Counting sort by the smaller entry, since entries are small
+        int[] starts = new int[maxIndex + 2];
+        for(int[] rule : rulesList) {
+            starts[rule[0] + 1]++;
+        }
+        for(int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        rules = new int[rulesList.size()][];
+        for(int[] rule : rulesList) {
+            rules[starts[rule[0]]++] = new int[] {rule[0] - 1, rule[1] - 1};
+        }
+        SORTED_RULES = sortRules(rules, weights);
+        COMPILED = new CompiledRules(SORTED_RULES);
+    }
+    
+    /**
+     * Prints a the tableau with a specific set of entries
+     * @param entries
+     * order of tableau entries to be printed
+     * @return
+     * the formatted tableau string
+     */
+    public String print(int[] entries) {
+        int h = 0, g = 0;
+        StringBuilder s = new StringBuilder();
+        for(int i = 0; i < SHAPE.length; i++) {
+            for(int j = 0; j < SHAPE[i]; j++) {
+                for(int k = 0; k < WEIGHT[g]; k++) {
+                    if(i == 0 && j == 0) {
+                        s.append(1).append(' ');
+                        break;
+                    }
+                    if(h < entries.length || !RECT)
+                        s.append(entries[h++]).append(' ');
+                    else
+                        s.append(entries.length + 2).append(' ');
+                }
+                g++;
+                s.append('\t');
+            }
+            s.append('\n');
+        }
+        return s.toString();
+    }
+    
+    //Saves list of:  i must be less than j; {{i, j}, ...}
+    //List indices start at 1 because that's fun
+    private ArrayList<int[]> makeRules(int[] rowStart, int[] last) {
+        ArrayList<int[]> rulesList = new ArrayList<>();
+        //Column rules
+        for(int i = 0; i < SHAPE.length - 1; i++) {
+            for(int j = 0; j < SHAPE[i + 1]; j++) {
+                int below = rowStart[i + 1] + j;
+                rulesList.add(new int[] {last[rowStart[i] + j],
+                    last[below] - WEIGHT[below] + 1});
+            }
+        }
+        
+        //Row rules
+        for(int i = 0; i < SHAPE.length; i++) {
+            for(int j = 0; j < SHAPE[i] - 1; j++) {
+                int g = rowStart[i] + j;
+                rulesList.add(new int[] {last[g], last[g] + 1});
+            }
+        }
+        
+        //Cell rules
+        for(int g = 0; g < WEIGHT.length; g++) {
+            for(int k = 1; k < WEIGHT[g]; k++) {
+                rulesList.add(new int[] {last[g] - k, last[g] - k + 1});
+            }
+        }
+        return rulesList;
+    }
+    
+    private int[][][] sortRules(int[][] rules, int[][] weights) {
+        int[][][] sortedRules;
+        int[] counts = new int[N];
+        Arrays.fill(counts, 1);
+        for(int[] rule : rules) {
+            counts[rule[0]]++;
+            counts[rule[1]]++;
+        }
+        sortedRules = new int[N][][];
+        int[] maxima = flatten(getCellMaxima(weights));
+        for(int i = 0; i < sortedRules.length; i++) {
+            sortedRules[i] = new int[counts[i]][];
+            sortedRules[i][0] = new int[] {maxima[i]};
+            counts[i] = 1;
+        }
+        //In the order of the rules, like scanning them for every entry
+        for(int[] rule : rules) {
+            sortedRules[rule[0]][counts[rule[0]]++] = rule;
+            sortedRules[rule[1]][counts[rule[1]]++] = rule;
+        }
+        return sortedRules;
+    }
+    
+    private int[][] getCellMaxima(int[][] weights) {
+        int[][] maxima = new int[SHAPE.length][];//Each digit has a minimum
+        maxima[0] = new int[IntStream.of(weights[0]).sum() - 1];
+        for(int i = 1; i < maxima.length - 1; i++) {
+            maxima[i] = new int[IntStream.of(weights[i]).sum()];
+        }
+        //This is what I get for adding a rectangular boolean
+        if(RECT)
+            maxima[maxima.length - 1] =
+                    new int[IntStream.of(weights[maxima.length - 1]).sum() -
+                    weights[maxima.length - 1][weights[maxima.length - 1].length
+                    - 1]];
+        else
+            maxima[maxima.length - 1] =
+                    new int[IntStream.of(weights[maxima.length - 1]).sum()];
+        int h;
+        int[][] cumulativeSums = cumulativeSums(weights);
+        for(int i = 0; i < maxima.length; i++) {  //Go through each row
+            h = 0;
+            for(int j = 0; j < weights[i].length; j++) {  //One cell at a time
+                for(int k = 1; k <= weights[i][j]; k++) {//One for each weight
+                    if((RECT && i == maxima.length - 1 && j ==
+                            weights[i].length - 1) ||
+                            (i == 0 && j == 0))
+                        break;
+                    maxima[i][h++] = k + cumulativeSums[i][j];
+                }
+            }
+        }
+        return maxima;
+    }
+    
+    //The weight of every cell that need not be larger than cell (g, h),
+    //which is everything outside of the cells below and right of it
+    private int[][] cumulativeSums(int[][] weights) {
+        int total = IntStream.of(WEIGHT).sum();
+        //Weight of the cells at or below and right of each cell, built up
+        //from the bottom right
+        int[][] below = new int[weights.length + 1][];
+        below[weights.length] = new int[1];
+        for(int g = weights.length - 1; g >= 0; g--) {
+            int[] next = below[g + 1];
+            below[g] = new int[weights[g].length + 1];
+            for(int h = weights[g].length - 1; h >= 0; h--) {
+                below[g][h] = weights[g][h] + below[g][h + 1];
+                if(h < next.length - 1)
+                    below[g][h] += next[h] - next[h + 1];
+            }
+        }
+        int[][] ints = new int[weights.length][];
+        for(int g = 0; g < ints.length; g++) {
+            ints[g] = new int[weights[g].length];
+            for(int h = 0; h < ints[g].length; h++) {
+                ints[g][h] = total - below[g][h];
+            }
+        }
+        return ints;
+    }
+    
+    private int[] flatten(int[][] array) {
+        int[] f;
+        int s = 0;
+        for(int[] a : array) {
+            s += a.length;
+        }
+        f = new int[s];
+        s = 0;
+        for(int[] a : array) {
+            for(int j = 0; j < a.length; j++) {
+                f[s++] = a[j];
+            }
+        }
+        return f;
+    }
+    
+    /**
+     * Returns the tableau rules sorted by entry.
+     * @return
+     * A 3D array with the entry position indexed first, followed by the rules
+     * and then by the relevant entries.
+     */
+    public int[][][] getSortedRules() {return SORTED_RULES;}
+    
+    /**
+     * Returns the rules flattened for the search engines.
+     * @return
+     * the compiled rules, sorted by entry like {@link #getSortedRules()}
+     */
+    public CompiledRules getCompiledRules() {return COMPILED;}
+    
+    /**
+     * Returns the tables the search uses to prune partial tableaux that can
+     * no longer be finished.  They grow with the square of the number of
+     * entries, so they are only built once a search asks for them.
+     * @return
+     * the lookahead tables of this shape
+     */
+    Lookahead getLookahead() {
+        Lookahead tables = lookahead;
+        if(tables == null) {
+            synchronized(this) {
+                tables = lookahead;
+                if(tables == null)
+                    lookahead = tables = new Lookahead(COMPILED);
+            }
+        }
+        return tables;
+    }
+    
+    /**
+     * Returns true if the tableau is rectangular in shape.  This is unaffected
+     * by the weights.
+     * @return
+     * true if and only if the tableau is rectangular in shape
+     */
+    public boolean getRect() {return RECT;}
+    
+    /**
+     * Returns true if transposing a tableau of this shape gives another one,
+     * that is, if the shape is its own conjugate and the weights are
+     * symmetric across the diagonal.  Transposing then pairs every tableau
+     * with 2 right of the top left cell with one that has it below.
+     * @return
+     * true if and only if the weights are symmetric under transposition
+     */
+    public boolean getTransposable() {return TRANSPOSABLE;}
+    
+    /**
+     * Returns the length of each row of the tableau.
+     * @return
+     * the row lengths, from top to bottom
+     */
+    public int[] getShape() {return SHAPE.clone();}
+    
+    /**
+     * Returns the weight of every cell, reading each row from left to right
+     * and the rows from top to bottom.
+     * @return
+     * the flattened cell weights
+     */
+    public int[] getWeights() {return WEIGHT.clone();}
+    
+    /**
+     * Returns the number of potentially varying entries in a given tableau.
+     * The top left corner must always be 1, and if the tableau is
+     * rectangular, the bottom right corner must also always be 1.
+     * @return
+     * the number of varying entries
+     */
+    public int getN() {
+        return N;
+    }//Took off ends if rectangular, took off first otherwise
+    
+    /**
+     * Returns the weights of the tableau on a single line, with rows
+     * separated by "/".  Equal shapes and weights always give the same
+     * line, so it can name the tableau in files.
+     * @return
+     * a line like "1 2 2/2 1"
+     */
+    public String describe() {
+        StringBuilder s = new StringBuilder();
+        int h = 0;
+        for(int i = 0; i < SHAPE.length; i++) {
+            if(i > 0)
+                s.append('/');
+            for(int j = 0; j < SHAPE[i]; j++) {
+                if(j > 0)
+                    s.append(' ');
+                s.append(WEIGHT[h++]);
+            }
+        }
+        return s.toString();
+    }
+    
+    @Override
+    public String toString() {
+        int[] numbers = new int[getN()];
+        for(int i = 0; i < numbers.length; i++) {
+            numbers[i] = i + 2;
+        }
+        return print(numbers);
+    }
 }
\ No newline at end of file
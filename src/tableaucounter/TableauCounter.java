@@ -1,79 +1,579 @@
-package tableaucounter;
-
-import java.io.*;
-import java.nio.file.*;
-
-/**
- * Counts the number of set-weighted Young Tableaux of a given shape with the
- * option of storing them in a text file.
- * @author Benjamin Levandowski
- */
-public class TableauCounter {
-
-    /**
-     * Main class.  Use the "-w" command line argument to save tableaux to a
-     * text file.
-     * @param args
-     * use "-w" to write tableaux to a text file
-     * @throws FileNotFoundException
-     * if the input tableau file is not present
-     * @throws IOException
-     * if the output file has write protection
-     * @throws InterruptedException
-     * if the input tableau doesn't start with a 1 or if it's rectangular, end
-     * with a 1
-     */
-    public static void main(String[] args) throws
-            FileNotFoundException, IOException, InterruptedException {
-        boolean write = false;
-        if(args.length > 0 && "-w".equals(args[0]))
-            write = true;
-        long total;
-        Tableau tableau = TableauInput.getTableau();
-        System.out.println(tableau);
-        
-        if(write)
-            total = writeCount(tableau);
-        else {
-            final int THREAD_COUNT = (tableau.getSortedRules()[0][0][0] - 1) *
-            (tableau.getSortedRules()[1][0][0] - 1);
-            ParallelCounter[] counters = new ParallelCounter[THREAD_COUNT];
-            Thread[] threads = new Thread[THREAD_COUNT];
-            System.out.println("There were " + THREAD_COUNT +
-                    " threads stared.");
-            for(int i = 0; i < THREAD_COUNT; i++) {
-                counters[i] = new ParallelCounter(tableau, i, THREAD_COUNT);
-                threads[i] = new Thread(counters[i], "#" + i);
-                threads[i].start();
-            }
-            total = 0L;
-            for(int i = 0; i < THREAD_COUNT; i++) {
-                threads[i].join();
-                total += counters[i].getCount();
-            }
-        }
-        
-        System.out.println("\nThere are " + total + " tableaux of this shape.");
-    }
-    
-    /**
-     * Counts the number of Young Tableaux of a given shape while saving each
-     * unique tableau to a text file.
-     * @param tableau
-     * the Young Tableau shape to be counted
-     * @return the number of unique tableaux of that shape
-     * @throws IOException
-     * if there is an issue with the output file
-     */
-    public static long writeCount(Tableau tableau) throws IOException {
-        String file = "output.txt";
-        long total;
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(file))) {
-            Counter count = new Counter(tableau);
-            total = count.count(writer);
-            writer.write("There are " + total +
-                    " tableaux of this shape.");
-        }
-        return total;
-    }
+package tableaucounter;
+
+import java.io.*;
+import java.math.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.management.*;
+
+/**
+ * Counts the number of set-weighted Young Tableaux of a given shape with the
+ * option of storing them in a text file.
+ * @author Benjamin Levandowski
+ */
+public class TableauCounter {
+
+    /**
+     * Main class.  Use the "-w" command line argument to save tableaux to a
+     * text file, "-b" to save them to the smaller binary output.bin instead,
+     * "--shards" to have every worker thread write its own part of output.txt
+     * (joined back together with "--merge"), and "-p" followed by a number
+     * to set how many worker threads search for tableaux.  Without "-w",
+     * tableaux are counted by their frontiers unless "-e search" asks for the
+     * exhaustive search.  The search saves its progress to checkpoint.txt
+     * every "-c" seconds, and "--resume" continues from that file.
+     * @param args
+     * use "-w" to write tableaux to a text file, "-p n" for n worker threads,
+     * "-e search" or "-e frontier" to choose the counting engine, "-c n" to
+     * checkpoint the search every n seconds, "--resume" to continue it and
+     * "-b" to write tableaux to a binary file, "--shards" to write them from
+     * every worker thread at once, "--merge" to join those shards and
+     * "--no-lookahead" to search without pruning ahead, "-e estimate" to only
+     * estimate the size of the search and "--units n" to cut the search into
+     * n pieces of about the same estimated size up front, and "--progress n"
+     * to print how the search is going every n seconds, and "--batch file"
+     * to count every shape of a batch file instead of Tableau.txt.  "--cache
+     * dir" keeps counts in a result cache in that directory, and "--no-cache"
+     * turns it off again.  "--slice i/k" counts only slice i of k, so k
+     * processes can share a search, and "--merge-slices" adds up the slices
+     * they wrote.  Shapes with a formula, like those whose
+     * weights are all 1, are counted by it unless "-e search" is used, and
+     * "-e verify" checks the formulas against the search on every shape of
+     * up to "--cells n" cells.  With "-w", "--range a-b" writes only the
+     * tableaux numbered a up to but not including b, and "--sample n"
+     * writes n tableaux drawn uniformly at random.  The search of a shape
+     * that is symmetric under transposition only searches half of it unless
+     * "--no-symmetry" is used.  "--sweep r,c,a-b" counts the shape for every
+     * weight from a to b of the cell in row r and column c.  "--serve"
+     * keeps counting the shapes sent one per line to standard input, or to
+     * the local port given by "--port n", replying to each with a line of
+     * JSON
+     * @throws FileNotFoundException
+     * if the input tableau file is not present
+     * @throws IOException
+     * if the output file has write protection
+     * @throws InterruptedException
+     * if the input tableau doesn't start with a 1 or if it's rectangular, end
+     * with a 1
+     */
+    public static void main(String[] args) throws
+            FileNotFoundException, IOException, InterruptedException {
+        boolean write = false, binary = false, shards = false, merge = false;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String engine = "frontier";
+        long interval = 0L, progress = 0L;
+        boolean resume = false, lookahead = true, symmetry = true;
+        int units = 0;
+        String batch = null;
+        Path cacheDirectory = null;  //No result cache unless one is named
+        int slice = 0, slices = 0;
+        boolean mergeSlices = false;
+        int verifyCells = 10;
+        long from = -1L, to = -1L;
+        int samples = 0;
+        String sweep = null;  //Checked against the shape once it is read
+        boolean serve = false;
+        int port = 0;
+        for(int i = 0; i < args.length; i++) {
+            if("-w".equals(args[i]))
+                write = true;
+            else if("-b".equals(args[i]))
+                binary = true;
+            else if("-p".equals(args[i]) && i + 1 < args.length)
+                parallelism = Integer.parseInt(args[++i]);
+            else if("-e".equals(args[i]) && i + 1 < args.length)
+                engine = args[++i];
+            else if("-c".equals(args[i]) && i + 1 < args.length)
+                interval = Long.parseLong(args[++i]);
+            else if("--resume".equals(args[i]))
+                resume = true;
+            else if("--shards".equals(args[i]))
+                shards = true;
+            else if("--merge".equals(args[i]))
+                merge = true;
+            else if("--no-lookahead".equals(args[i]))
+                lookahead = false;
+            else if("--no-symmetry".equals(args[i]))
+                symmetry = false;
+            else if("--units".equals(args[i]) && i + 1 < args.length)
+                units = Integer.parseInt(args[++i]);
+            else if("--progress".equals(args[i]) && i + 1 < args.length)
+                progress = Long.parseLong(args[++i]);
+            else if("--batch".equals(args[i]) && i + 1 < args.length)
+                batch = args[++i];
+            else if("--cache".equals(args[i]) && i + 1 < args.length)
+                cacheDirectory = Paths.get(args[++i]);
+            else if("--no-cache".equals(args[i]))
+                cacheDirectory = null;
+            else if("--slice".equals(args[i]) && i + 1 < args.length) {
+                int[] parsed = SliceCounter.parseSlice(args[++i]);
+                if(parsed == null) {
+                    System.out.println("Use \"--slice i/k\" to count slice i "
+                            + "of k, like \"--slice 2/5\".");
+                    System.exit(1);
+                }
+                slice = parsed[0];
+                slices = parsed[1];
+            }
+            else if("--merge-slices".equals(args[i]))
+                mergeSlices = true;
+            else if("--cells".equals(args[i]) && i + 1 < args.length)
+                verifyCells = Integer.parseInt(args[++i]);
+            else if("--sweep".equals(args[i]) && i + 1 < args.length)
+                sweep = args[++i];
+            else if("--sample".equals(args[i]) && i + 1 < args.length)
+                samples = Integer.parseInt(args[++i]);
+            else if("--serve".equals(args[i]))
+                serve = true;
+            else if("--port".equals(args[i]) && i + 1 < args.length) {
+                serve = true;
+                port = Integer.parseInt(args[++i]);
+            }
+            else if("--range".equals(args[i]) && i + 1 < args.length) {
+                long[] range = parseRange(args[++i]);
+                if(range == null) {
+                    System.out.println("Use \"--range a-b\" with a < b to "
+                            + "write the tableaux numbered a up to but not "
+                            + "including b, like \"--range 0-100\".");
+                    System.exit(1);
+                }
+                from = range[0];
+                to = range[1];
+            }
+        }
+        boolean counting = !write && !binary && !shards && !merge &&
+                !"estimate".equals(engine) && !"verify".equals(engine) &&
+                slices == 0 && samples == 0;
+        ResultCache cache = counting && cacheDirectory != null ?
+                openCache(cacheDirectory) : null;
+        if(serve) {
+            serve(parallelism, engine, lookahead, symmetry, cache, port);
+            return;
+        }
+        if(batch != null) {
+            BatchCounter counter = new BatchCounter(parallelism, engine,
+                    System.out);
+            counter.setLookahead(lookahead);
+            counter.setSymmetry(symmetry);
+            counter.setCache(cache);
+            long startTime = System.nanoTime();
+            long[] totals = counter.count(TableauInput.getBatch(
+                    new File(batch)));
+            System.out.println("After " + ((System.nanoTime() - startTime)
+                    / 1000000) + "ms, " + totals.length + " shapes were "
+                    + "counted.");
+            if(cache != null)
+                cache.close();
+            return;
+        }
+        if("verify".equals(engine)) {
+            if(!ClosedForm.verify(verifyCells, System.out))
+                System.exit(1);
+            return;
+        }
+        if(sweep != null) {
+            Tableau tableau = TableauInput.getTableau();
+            int[] parsed = parseSweep(sweep, tableau.getShape());
+            if(parsed == null) {
+                System.out.println("Use \"--sweep r,c,a-b\" with 1 <= a <= b "
+                        + "to count every weight from a to b of the cell in "
+                        + "row r and column c of Tableau.txt, like \"--sweep "
+                        + "2,1,1-4\".");
+                System.exit(1);
+            }
+            try {
+                sweep(tableau, parsed[0], parsed[1], parsed[2], parsed[3]);
+            } catch(RejectedExecutionException e) {
+                System.out.println(e.getMessage() + ".");
+                System.exit(1);
+            }
+            return;
+        }
+        long total;
+        BigInteger wide = null;
+        Tableau tableau = TableauInput.getTableau();
+        System.out.println(tableau);
+        ResultCache.Result cached = lookup(cache, tableau);
+        
+        if(slices > 0) {
+            SliceCounter counter = new SliceCounter(tableau, slice, slices,
+                    parallelism);
+            long startTime = System.nanoTime();
+            long count = counter.count();
+            Path file = counter.write(Paths.get(""), count);
+            System.out.println("After " + ((System.nanoTime() - startTime)
+                    / 1000000) + "ms, slice " + slice + "/" + slices
+                    + " holds " + count + " tableaux.  Wrote " + file + ".");
+            return;
+        }
+        else if(mergeSlices) {
+            total = SliceCounter.merge(Paths.get(""), tableau);
+            store(cache, tableau, total, Collections.emptyMap());
+        }
+        else if(shards) {
+            ShardedWriter writer = new ShardedWriter(tableau, parallelism,
+                    Paths.get(""));
+            long startTime = System.nanoTime();
+            total = writer.count();
+            System.out.println("After " + ((System.nanoTime() - startTime)
+                    / 1000000) + "ms, " + writer.getShards()
+                    + " shards were written.");
+            if(merge)
+                ShardedWriter.merge(Paths.get(""));
+        }
+        else if(merge)
+            total = ShardedWriter.merge(Paths.get(""));
+        else if("estimate".equals(engine)) {
+            estimate(tableau, parallelism);
+            return;
+        }
+        else if(samples > 0) {
+            FrontierCounter counter = new FrontierCounter(tableau);
+            wide = counter.countExact(true);
+            total = wide.bitLength() < 64 ? wide.longValue() : -1L;
+            long startTime = System.nanoTime();
+            writeSamples(tableau, counter.sample(new Random(), samples));
+            System.out.println("After " + ((System.nanoTime() - startTime)
+                    / 1000000) + "ms, " + samples + " random tableaux were "
+                    + "written.");
+        }
+        else if(binary)
+            total = binaryCount(tableau);
+        else if(write && from >= 0) {
+            Ranker ranker = new Ranker(tableau);
+            total = ranker.size();
+            if(from >= total) {
+                System.out.println("There are only " + total + " tableaux of "
+                        + "this shape, numbered from 0, so there is no "
+                        + "tableau " + from + ".");
+                System.exit(1);
+            }
+            long written = writeRange(tableau, from, Math.min(to, total));
+            System.out.println("Wrote tableaux " + from + " to " + (from +
+                    written - 1) + " to output.txt.");
+        }
+        else if(write)
+            total = writeCount(tableau);
+        else if(cached != null && cached.getTotal() >= 0) {
+            total = cached.getTotal();
+            System.out.println("Found in the result cache.");
+        }
+        else if("frontier".equals(engine) && !resume &&
+                (wide = ClosedForm.count(tableau)) != null) {
+            total = wide.bitLength() < 64 ? wide.longValue() : -1L;
+            System.out.println("Counted by formula.");
+        }
+        else if("frontier".equals(engine) && !resume) {
+            FrontierCounter counter = new FrontierCounter(tableau);
+            long startTime = System.nanoTime();
+            wide = counter.countExact();
+            System.out.println("After " + ((System.nanoTime() - startTime)
+                    / 1000000) + "ms, " + counter.getStates()
+                    + " frontiers were counted.");
+            //Too many for a long only fit in the printout
+            total = wide.bitLength() < 64 ? wide.longValue() : -1L;
+            if(total >= 0)
+                store(cache, tableau, total, Collections.emptyMap());
+        }
+        else {
+            Checkpoint checkpoint = null;
+            Path file = Paths.get("checkpoint.txt");
+            if(resume && Files.exists(file)) {
+                checkpoint = Checkpoint.load(file, tableau);
+                System.out.println("Resuming from " + file + ".");
+            } else if(resume || interval > 0)
+                checkpoint = new Checkpoint(file, tableau);
+            ForkJoinCounter counter = new ForkJoinCounter(tableau,
+                    parallelism, checkpoint, interval > 0 ? interval : 60L);
+            counter.setLookahead(lookahead);
+            counter.setSymmetry(symmetry);
+            counter.setWorkUnits(units);
+            if(symmetry && tableau.getTransposable())
+                System.out.println("The weights are symmetric, so only the "
+                        + "tableaux with 2 in the first entry are searched.");
+            counter.setProgress(progress);
+            if(cached != null) {
+                counter.setKnownSubtrees(cached.getSubtrees());
+                System.out.println(cached.getSubtrees().size() + " subtrees "
+                        + "were found in the result cache.");
+            }
+            try {
+                counter.getMetrics().register();
+            } catch(JMException e) {
+                System.out.println("Could not register the search metrics: "
+                        + e.getMessage());
+            }
+            //Keep the finished subtrees if the search is stopped
+            final ResultCache finalCache = cache;
+            Thread keeper = cache == null ? null : new Thread(() -> store(
+                    finalCache, tableau, -1L, counter.getSubtreeCounts()));
+            if(keeper != null)
+                Runtime.getRuntime().addShutdownHook(keeper);
+            long startTime = System.nanoTime();
+            total = counter.count();
+            if(keeper != null)
+                Runtime.getRuntime().removeShutdownHook(keeper);
+            store(cache, tableau, total, counter.getSubtreeCounts());
+            System.out.println("After " + ((System.nanoTime() - startTime)
+                    / 1000000) + "ms, " + counter.getParallelism()
+                    + " worker threads completed the search.");
+            System.out.println(counter.getNodes() + " nodes were visited and "
+                    + counter.getPruned() + " more were pruned by looking "
+                    + "ahead.");
+        }
+        
+        if(cache != null)
+            cache.close();
+        System.out.println("\nThere are " + (total >= 0 ? total : wide)
+                + " tableaux of this shape.");
+    }
+    
+    /**
+     * Runs a counting server until its input ends, or forever when it listens
+     * on a port.
+     * @param parallelism
+     * the number of jobs counted at once
+     * @param engine
+     * the engine used unless a request picks one
+     * @param lookahead
+     * true to prune searches by looking ahead
+     * @param symmetry
+     * true to search half of transposable shapes
+     * @param cache
+     * the result cache, or null to not use one
+     * @param port
+     * the local port to listen on, or 0 to read standard input
+     * @throws IOException
+     * if the requests cannot be read or the port cannot be listened on
+     */
+    public static void serve(int parallelism, String engine,
+            boolean lookahead, boolean symmetry, ResultCache cache, int port)
+            throws IOException {
+        try (CountingServer server = new CountingServer(parallelism,
+                engine)) {
+            server.setLookahead(lookahead);
+            server.setSymmetry(symmetry);
+            server.setCache(cache);
+            long startTime = System.nanoTime();
+            server.warmUp();
+            System.err.println("Warmed up in " + ((System.nanoTime() -
+                    startTime) / 1000000) + "ms.");
+            if(port > 0) {
+                System.err.println("Listening on port " + port + ".");
+                server.listen(port);
+            } else {
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        System.out));
+                server.serve(new BufferedReader(new InputStreamReader(
+                        System.in)), out);
+            }
+        } finally {
+            if(cache != null)
+                cache.close();
+        }
+    }
+
+    //The first and one past the last index of a text like "10-20", or null
+    //if the text does not name a range holding at least one tableau
+    private static long[] parseRange(String text) {
+        if(!text.matches("\\d{1,18}-\\d{1,18}"))
+            return null;
+        String[] parts = text.split("-");
+        long from = Long.parseLong(parts[0]), to = Long.parseLong(parts[1]);
+        return from < to ? new long[] {from, to} : null;
+    }
+
+    //The row and column from 0 and the weights of a text like "2,1,1-4", or
+    //null if the text does not name a cell of the shape and weights from 1
+    private static int[] parseSweep(String text, int[] shape) {
+        if(!text.matches("\\d{1,9},\\d{1,9},\\d{1,9}-\\d{1,9}"))
+            return null;
+        String[] parts = text.split("[,-]");
+        int row = Integer.parseInt(parts[0]) - 1;
+        int column = Integer.parseInt(parts[1]) - 1;
+        int from = Integer.parseInt(parts[2]), to = Integer.parseInt(parts[3]);
+        if(row < 0 || row >= shape.length || column < 0 ||
+                column >= shape[row] || from < 1 || from > to)
+            return null;
+        return new int[] {row, column, from, to};
+    }
+
+    private static ResultCache openCache(Path directory) {
+        try {
+            ResultCache cache = ResultCache.open(directory,
+                    ResultCache.DEFAULT_LIMIT);
+            System.out.println("Using the result cache in " +
+                    directory.toAbsolutePath() + ".");
+            return cache;
+        } catch(IOException e) {
+            System.out.println("The result cache is not used: " +
+                    e.getMessage());
+            return null;
+        }
+    }
+    
+    private static ResultCache.Result lookup(ResultCache cache,
+            Tableau tableau) {
+        if(cache == null)
+            return null;
+        try {
+            return cache.get(tableau);
+        } catch(IOException e) {
+            System.out.println("Could not read the result cache: " +
+                    e.getMessage());
+            return null;
+        }
+    }
+    
+    private static void store(ResultCache cache, Tableau tableau, long total,
+            Map<String, Long> subtrees) {
+        if(cache == null)
+            return;
+        try {
+            cache.put(tableau, total, subtrees);
+        } catch(IOException e) {
+            System.out.println("Could not write the result cache: " +
+                    e.getMessage());
+        }
+    }
+    
+    /**
+     * Counts the tableaux of a shape for every weight of one cell in a
+     * range, sharing the work before that cell is complete.
+     * @param tableau
+     * the Young Tableau shape whose cell is swept
+     * @param row
+     * the row of the swept cell, from 0
+     * @param column
+     * the column of the swept cell, from 0
+     * @param from
+     * the smallest weight of the swept cell
+     * @param to
+     * the largest weight of the swept cell
+     */
+    public static void sweep(Tableau tableau, int row, int column, int from,
+            int to) {
+        int[] shape = tableau.getShape(), weights = tableau.getWeights();
+        int[][] matrix = new int[shape.length][];
+        for(int i = 0, g = 0; i < shape.length; i++) {
+            matrix[i] = Arrays.copyOfRange(weights, g, g + shape[i]);
+            g += shape[i];
+        }
+        long startTime = System.nanoTime();
+        BigInteger[] counts = new WeightSweep(matrix, row, column, from,
+                to).count();
+        for(int k = 0; k < counts.length; k++) {
+            System.out.println("Weight " + (from + k) + ": " + counts[k]
+                    + " tableaux");
+        }
+        System.out.println("After " + ((System.nanoTime() - startTime)
+                / 1000000) + "ms, " + counts.length + " weights were "
+                + "counted.");
+    }
+    
+    /**
+     * Estimates how many tableaux of a given shape there are and how long
+     * searching for all of them would take, in a couple of seconds.
+     * @param tableau
+     * the Young Tableau shape to be estimated
+     * @param parallelism
+     * the number of worker threads the search would use
+     */
+    public static void estimate(Tableau tableau, int parallelism) {
+        TreeEstimator.Estimate estimate = new TreeEstimator(tableau,
+                System.nanoTime()).sampleFor(new int[0], 2000L);
+        SearchState search = new SearchState(tableau);
+        long start = System.nanoTime(), stop = start + 250000000L, now;
+        //Small shapes finish well before the quarter second is up
+        while((now = System.nanoTime()) < stop &&
+                search.next(search.getN())) {}
+        double rate = search.getNodes() * 1e9 / Math.max(1L, now - start);
+        System.out.printf("%d probes estimate %.4g tableaux (+/- %.2g) and "
+                + "%.4g search nodes (+/- %.2g).%n", estimate.getProbes(),
+                estimate.getTableaux(), estimate.getTableauxError(),
+                estimate.getNodes(), estimate.getNodesError());
+        System.out.printf("At %.3g nodes per second on each of %d worker "
+                + "threads, the search would take about %.3g seconds.%n",
+                rate, parallelism, estimate.getNodes() / rate / parallelism);
+    }
+    
+    /**
+     * Counts the number of Young Tableaux of a given shape while saving each
+     * unique tableau to a text file.
+     * @param tableau
+     * the Young Tableau shape to be counted
+     * @return the number of unique tableaux of that shape
+     * @throws IOException
+     * if there is an issue with the output file
+     */
+    public static long writeCount(Tableau tableau) throws IOException {
+        String file = "output.txt";
+        long total;
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(file))) {
+            Counter count = new Counter(tableau);
+            total = count.count(writer);
+            writer.write("There are " + total +
+                    " tableaux of this shape.");
+        }
+        return total;
+    }
+    
+    /**
+     * Saves the tableaux with indices in a given range to a text file,
+     * starting from the first of them rather than from the first tableau.
+     * @param tableau
+     * the Young Tableau shape to be written
+     * @param from
+     * the index of the first tableau to write, from 0
+     * @param to
+     * one past the index of the last tableau to write
+     * @return the number of tableaux written
+     * @throws IOException
+     * if there is an issue with the output file
+     */
+    public static long writeRange(Tableau tableau, long from, long to) throws
+            IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                Paths.get("output.txt"))) {
+            return new Counter(tableau).count(writer, from, to);
+        }
+    }
+    
+    /**
+     * Saves tableaux drawn at random to a text file, laid out the same way
+     * as {@link #writeCount(Tableau)} lays out every tableau.
+     * @param tableau
+     * the Young Tableau shape the samples belong to
+     * @param samples
+     * the entries of each drawn tableau
+     * @throws IOException
+     * if there is an issue with the output file
+     */
+    public static void writeSamples(Tableau tableau, List<int[]> samples)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                Paths.get("output.txt"))) {
+            for(int[] entries : samples) {
+                writer.write(tableau.print(entries) + "\n");
+            }
+        }
+    }
+    
+    /**
+     * Counts the number of Young Tableaux of a given shape while saving each
+     * unique tableau to a binary file.  {@link TableauDecoder} turns the file
+     * back into the text that {@link #writeCount(Tableau)} writes.
+     * @param tableau
+     * the Young Tableau shape to be counted
+     * @return the number of unique tableaux of that shape
+     * @throws IOException
+     * if there is an issue with the output file
+     */
+    public static long binaryCount(Tableau tableau) throws IOException {
+        try (BinaryTableauWriter writer = new BinaryTableauWriter(
+                Paths.get("output.bin"), tableau)) {
+            return new Counter(tableau).count(writer);
+        }
+    }
 }
\ No newline at end of file
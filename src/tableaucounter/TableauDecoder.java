@@ -0,0 +1,111 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Turns a file written by {@link BinaryTableauWriter} back into the text
+ * layout of output.txt.
+ * @author Benjamin Levandowski
+ */
+public final class TableauDecoder {
+
+    private TableauDecoder() {}
+
+    /**
+     * Main class.  Decodes output.bin into output.txt unless other files are
+     * given.
+     * @param args
+     * the binary file to read and the text file to write
+     * @throws IOException
+     * if either file cannot be used
+     */
+    public static void main(String[] args) throws IOException {
+        Path in = Paths.get(args.length > 0 ? args[0] : "output.bin");
+        Path out = Paths.get(args.length > 1 ? args[1] : "output.txt");
+        long total;
+        try (BufferedWriter writer = Files.newBufferedWriter(out)) {
+            total = decode(in, writer);
+            writer.write("There are " + total +
+                    " tableaux of this shape.");
+        }
+        System.out.println("Decoded " + total + " tableaux into " + out +
+                ".");
+    }
+
+    /**
+     * Writes every tableau of a binary file as text.
+     * @param file
+     * the binary tableau file
+     * @param writer
+     * where the text is written
+     * @return the number of tableaux in the file
+     * @throws IOException
+     * if the file is not a complete binary tableau file
+     */
+    public static long decode(Path file, BufferedWriter writer) throws
+            IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.flip();
+            fill(channel, buffer, 9);
+            if(buffer.getInt() != BinaryTableauWriter.MAGIC)
+                throw new IOException(file + " is not a binary tableau file");
+            if(buffer.get() != BinaryTableauWriter.VERSION)
+                throw new IOException(file + " has an unknown version");
+            int[][] weights = new int[buffer.getInt()][];
+            for(int i = 0; i < weights.length; i++) {
+                fill(channel, buffer, 4);
+                weights[i] = new int[buffer.getInt()];
+            }
+            for(int[] row : weights) {
+                for(int j = 0; j < row.length; j++) {
+                    fill(channel, buffer, 4);
+                    row[j] = buffer.getInt();
+                }
+            }
+            Tableau tableau = new Tableau(weights);
+            fill(channel, buffer, 5);
+            int n = buffer.getInt(), width = buffer.get();
+            if(n != tableau.getN())
+                throw new IOException(file + " does not match its own shape");
+            int end = width == 1 ? 0xFF : 0xFFFF;
+            int[] entries = new int[n];
+            long count = 0L;
+            while(true) {
+                fill(channel, buffer, width);
+                int keep = get(buffer, width);
+                if(keep == end)
+                    break;
+                fill(channel, buffer, (n - keep) * width);
+                for(int i = keep; i < n; i++) {
+                    entries[i] = get(buffer, width);
+                }
+                writer.write(tableau.print(entries) + "\n");
+                count++;
+            }
+            fill(channel, buffer, 8);
+            if(buffer.getLong() != count)
+                throw new IOException(file + " is missing tableaux");
+            return count;
+        }
+    }
+
+    private static int get(ByteBuffer buffer, int width) {
+        return width == 1 ? buffer.get() & 0xFF : buffer.getShort() & 0xFFFF;
+    }
+
+    private static void fill(FileChannel channel, ByteBuffer buffer,
+            int bytes) throws IOException {
+        if(buffer.remaining() >= bytes)
+            return;
+        buffer.compact();
+        while(buffer.position() < bytes) {
+            if(channel.read(buffer) < 0)
+                throw new EOFException("The binary tableau file ends early");
+        }
+        buffer.flip();
+    }
+}
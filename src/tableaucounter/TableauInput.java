@@ -2,6 +2,7 @@ package tableaucounter;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Converts a text file into a Young Tableau that can be processed by the
@@ -52,4 +53,101 @@ public final class TableauInput {
         }
         return new Tableau(weights);
     }
+
+    /**
+     * Returns the weights of every tableau in a batch file.  The file holds
+     * tableaux laid out like Tableau.txt, separated by blank lines.  Lines
+     * starting with "#" are ignored.
+     * @param batchIn
+     * the batch file
+     * @return the weights of each tableau, in the order of the file
+     * @throws FileNotFoundException
+     * if the batch file is missing or does not have read access
+     */
+    public static List<int[][]> getBatch(File batchIn) throws
+            FileNotFoundException {
+        ArrayList<int[][]> batch = new ArrayList<>();
+        ArrayList<int[]> rows = new ArrayList<>();
+        try (Scanner batchReader = new Scanner(batchIn)) {
+            while(batchReader.hasNextLine()) {
+                String line = batchReader.nextLine().trim();
+                if(line.startsWith("#"))
+                    continue;
+                if(line.isEmpty()) {
+                    if(!rows.isEmpty())
+                        batch.add(rows.toArray(new int[0][]));
+                    rows.clear();
+                    continue;
+                }
+                ArrayList<Integer> row = new ArrayList<>();
+                try (Scanner lineReader = new Scanner(line)) {
+                    while(lineReader.hasNextInt()) {
+                        row.add(lineReader.nextInt());
+                    }
+                }
+                int[] weight = new int[row.size()];
+                for(int j = 0; j < weight.length; j++) {
+                    weight[j] = row.get(j);
+                }
+                rows.add(weight);
+            }
+        }
+        if(!rows.isEmpty())
+            batch.add(rows.toArray(new int[0][]));
+        return batch;
+    }
+
+    /**
+     * Returns the weights of a tableau written on a single line, either as
+     * rows separated by "/", like "1 2 2/2 2 2/2 2 1", or as a JSON array of
+     * rows, like "[[1,2,2],[2,2,2],[2,2,1]]".
+     * @param line
+     * the weights of the tableau
+     * @return the weights of each row
+     * @throws RejectedExecutionException
+     * if the line does not hold the weights of a tableau
+     */
+    public static int[][] parseWeights(String line) {
+        line = line.trim();
+        ArrayList<int[]> rows = new ArrayList<>();
+        if(!line.startsWith("[")) {
+            for(String text : line.split("/")) {
+                rows.add(parseRow(text.trim().split("\\s+"), line));
+            }
+            return rows.toArray(new int[0][]);
+        }
+        //Only the two levels of brackets of an array of rows are expected
+        int depth = 0;
+        StringBuilder row = new StringBuilder();
+        for(char c : line.toCharArray()) {
+            if(c == '[' && ++depth > 2 || c == ']' && --depth < 0 ||
+                    depth == 0 && c != ']' && !Character.isWhitespace(c))
+                throw new RejectedExecutionException("\"" + line + "\" is "
+                        + "not an array of rows");
+            if(c == '[' && depth == 2)
+                row.setLength(0);
+            else if(c == ']' && depth == 1)
+                rows.add(parseRow(row.toString().trim().split("\\s*,\\s*"),
+                        line));
+            else if(depth == 2)
+                row.append(c);
+        }
+        if(depth != 0 || rows.isEmpty())
+            throw new RejectedExecutionException("\"" + line + "\" is not an "
+                    + "array of rows");
+        return rows.toArray(new int[0][]);
+    }
+
+    private static int[] parseRow(String[] text, String line) {
+        int[] row = new int[text.length];
+        try {
+            for(int j = 0; j < row.length; j++) {
+                row[j] = Integer.parseInt(text[j]);
+            }
+        } catch(NumberFormatException e) {
+            throw new RejectedExecutionException("\"" + line + "\" does not "
+                    + "hold the weights of a tableau");
+        }
+        return row;
+    }
 }
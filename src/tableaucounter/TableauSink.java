@@ -0,0 +1,39 @@
+package tableaucounter;
+
+import java.io.*;
+
+/**
+ * Receives the tableaux of a search one at a time, as the raw entries the
+ * search works on.  Nothing is copied or formatted on the way, so a sink that
+ * only filters or adds up tableaux never creates a string.
+ * @author Benjamin Levandowski
+ */
+@FunctionalInterface
+public interface TableauSink {
+
+    /**
+     * Receives one tableau.
+     * @param entries
+     * the entries of the tableau, which the search keeps changing after
+     * this returns, so copy them before keeping them
+     * @throws IOException
+     * if the sink cannot take the tableau
+     */
+    void accept(int[] entries) throws IOException;
+
+    /**
+     * Receives one tableau, knowing that every entry before a given one is
+     * the same as in the tableau received before it.  Sinks that build on
+     * the last tableau only need to redo the entries from there.
+     * @param entries
+     * the entries of the tableau, which the search keeps changing after
+     * this returns, so copy them before keeping them
+     * @param changed
+     * the index of the first entry that may differ from the last tableau
+     * @throws IOException
+     * if the sink cannot take the tableau
+     */
+    default void accept(int[] entries, int changed) throws IOException {
+        accept(entries);
+    }
+}
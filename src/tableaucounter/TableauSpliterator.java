@@ -0,0 +1,116 @@
+package tableaucounter;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Walks the tableaux of a shape for a {@link java.util.stream.Stream}, in the
+ * order of the search.  The spliterator holds a run of subtrees, named by
+ * their prefixes, and splitting hands the first half of them to a new
+ * spliterator.  With a single subtree left it is first cut into its
+ * children, so a parallel stream divides the search tree the same way
+ * {@link ForkJoinCounter} does.  Only subtrees not yet entered can be handed
+ * over.  The size is only estimated, from a few random probes of
+ * {@link TreeEstimator} made the first time it is asked for, so a
+ * sequential stream never pays for it.
+ * @author Benjamin Levandowski
+ */
+public final class TableauSpliterator implements Spliterator<int[]> {
+
+    private static final long PROBES = 256L;
+
+    private final Tableau TABLEAU;
+    private final int N;
+    private final ArrayDeque<int[]> PREFIXES;  //Subtrees not yet entered
+    private SearchState search;  //Walks the entered subtree, or null
+    private long estimate;  //-1 until it is first asked for
+
+    /**
+     * Creates a spliterator over every tableau of a given shape.
+     * @param tableau
+     * the shape whose tableaux are walked
+     */
+    public TableauSpliterator(Tableau tableau) {
+        this(tableau, new ArrayDeque<>(Collections.singleton(new int[0])),
+                -1L);
+    }
+
+    private TableauSpliterator(Tableau tableau, ArrayDeque<int[]> prefixes,
+            long estimate) {
+        this.TABLEAU = tableau;
+        N = TABLEAU.getN();
+        PREFIXES = prefixes;
+        this.estimate = estimate;
+    }
+
+    /**
+     * Hands the next tableau to an action.  The array is reused for every
+     * tableau this spliterator walks, so copy it before keeping it.
+     * @param action
+     * what receives the tableau
+     * @return false once every tableau has been walked
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        while(search == null || !search.next(N)) {
+            int[] prefix = PREFIXES.poll();
+            if(prefix == null) {
+                search = null;
+                return false;
+            }
+            if(search == null)
+                search = new SearchState(TABLEAU);
+            if(!search.reset(prefix, prefix.length))
+                search = null;
+        }
+        action.accept(search.getEntries());
+        return true;
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit() {
+        if(search != null)
+            return null;
+        SearchState children = null;
+        while(PREFIXES.size() == 1 && PREFIXES.peek().length < N) {
+            int[] prefix = PREFIXES.poll();
+            int w = prefix.length;
+            if(children == null)
+                children = new SearchState(TABLEAU);
+            if(!children.reset(prefix, w))
+                return null;
+            while(children.next(w + 1)) {
+                PREFIXES.add(Arrays.copyOf(children.getEntries(), w + 1));
+            }
+        }
+        if(PREFIXES.size() < 2)
+            return null;
+        ArrayDeque<int[]> first = new ArrayDeque<>();
+        for(int i = PREFIXES.size() / 2; i > 0; i--) {
+            first.add(PREFIXES.poll());
+        }
+        estimate = estimateSize() / 2;
+        return new TableauSpliterator(TABLEAU, first, estimate);
+    }
+
+    @Override
+    public long estimateSize() {
+        if(estimate < 0)
+            estimate = size(TABLEAU);
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    //Knuth's estimate of the number of tableaux, which only needs to guide
+    //how finely a parallel stream splits
+    private static long size(Tableau tableau) {
+        double tableaux = new TreeEstimator(tableau, 0L).sample(new int[0],
+                PROBES).getTableaux();
+        return tableaux < Long.MAX_VALUE ? Math.round(tableaux) :
+                Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,118 @@
+package tableaucounter;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes each tableau as text, the way {@link Tableau#print(int[])} lays it
+ * out, one after another.  Entries appear in the text in the order of the
+ * search, so consecutive tableaux share the text up to their first changed
+ * entry.  The last tableau's text is kept, and only the part from that entry
+ * on is formatted again.
+ * @author Benjamin Levandowski
+ */
+public final class TextSink implements TableauSink {
+
+    private final Writer WRITER;
+    private final int N;
+    private final char[][] LITERALS;  //Before each entry, then the tail
+    private final int[] START;  //Of the literal before each entry in TEXT
+    private final int[] PREVIOUS;
+    private final char[] TEXT;
+    private boolean formatted = false;
+
+    /**
+     * Creates a sink writing tableaux of a given shape.
+     * @param tableau
+     * the shape of every tableau written
+     * @param writer
+     * where the text is written
+     */
+    public TextSink(Tableau tableau, Writer writer) {
+        this.WRITER = writer;
+        N = tableau.getN();
+        LITERALS = literals(tableau);
+        START = new int[N + 1];
+        PREVIOUS = new int[N];
+        int length = 0;
+        for(char[] literal : LITERALS) {
+            length += literal.length;
+        }
+        TEXT = new char[length + N * (Integer.toString(N + 1).length() + 1)];
+    }
+
+    @Override
+    public void accept(int[] entries) throws IOException {
+        int changed = 0;
+        while(changed < N && entries[changed] == PREVIOUS[changed]) {
+            changed++;
+        }
+        accept(entries, changed);
+    }
+
+    @Override
+    public void accept(int[] entries, int changed) throws IOException {
+        if(!formatted) {
+            changed = 0;
+            formatted = true;
+        }
+        int p = START[changed];
+        for(int h = changed; h < N; h++) {
+            START[h] = p;
+            p = copy(LITERALS[h], p);
+            p = digits(entries[h], p);
+            TEXT[p++] = ' ';
+            PREVIOUS[h] = entries[h];
+        }
+        START[N] = p;
+        p = copy(LITERALS[N], p);
+        WRITER.write(TEXT, 0, p);
+    }
+
+    private int copy(char[] literal, int p) {
+        System.arraycopy(literal, 0, TEXT, p, literal.length);
+        return p + literal.length;
+    }
+
+    private int digits(int v, int p) {
+        int end = p + (v < 10 ? 1 : v < 100 ? 2 : v < 1000 ? 3 :
+                Integer.toString(v).length());
+        for(int i = end - 1; i >= p; i--) {
+            TEXT[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return end;
+    }
+
+    //Splits the layout of Tableau.print around the entries, with the blank
+    //line that separates tableaux at the end
+    private static char[][] literals(Tableau tableau) {
+        int[] shape = tableau.getShape(), weights = tableau.getWeights();
+        int n = tableau.getN();
+        ArrayList<char[]> literals = new ArrayList<>();
+        StringBuilder s = new StringBuilder();
+        int h = 0, g = 0;
+        for(int i = 0; i < shape.length; i++) {
+            for(int j = 0; j < shape[i]; j++) {
+                for(int k = 0; k < weights[g]; k++) {
+                    if(i == 0 && j == 0) {
+                        s.append(1).append(' ');
+                        break;
+                    }
+                    if(h < n) {
+                        literals.add(s.toString().toCharArray());
+                        s.setLength(0);
+                        h++;
+                    } else
+                        s.append(n + 2).append(' ');
+                }
+                g++;
+                s.append('\t');
+            }
+            s.append('\n');
+        }
+        s.append('\n');
+        literals.add(s.toString().toCharArray());
+        return literals.toArray(new char[0][]);
+    }
+}
@@ -0,0 +1,207 @@
+package tableaucounter;
+
+import java.util.*;
+
+/**
+ * Estimates the size of a search tree without searching it, using Knuth's
+ * random probes.  Each probe walks from a prefix down to a leaf or a dead end,
+ * choosing uniformly among the valid values of each entry.  The product of
+ * the number of choices along the way is an unbiased estimate of the number
+ * of tableaux below the prefix, and the running products summed over the
+ * depths estimate the number of nodes.  The same candidates as
+ * {@link SearchState} are used, so the estimates describe the tree the
+ * counters really search.
+ * @author Benjamin Levandowski
+ */
+public class TreeEstimator {
+
+    private final Tableau TABLEAU;
+    private final int N;
+    private final SearchState SEARCH;
+    private final int[] CHOICES;
+    private final Random RANDOM;
+
+    /**
+     * Creates an estimator for a given tableau shape.
+     * @param tableau
+     * the shape of the tableau whose search tree is estimated
+     * @param seed
+     * the seed of the random probes, so estimates can be repeated
+     */
+    public TreeEstimator(Tableau tableau, long seed) {
+        this.TABLEAU = tableau;
+        N = TABLEAU.getN();
+        SEARCH = new SearchState(TABLEAU);
+        CHOICES = new int[N + 2];
+        RANDOM = new Random(seed);
+    }
+
+    /**
+     * Probes the tree below a prefix a given number of times.
+     * @param prefix
+     * the entries every probe starts with
+     * @param probes
+     * the number of probes
+     * @return the estimate
+     */
+    public Estimate sample(int[] prefix, long probes) {
+        Estimate estimate = new Estimate();
+        for(long i = 0; i < probes; i++) {
+            probe(prefix, estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * Probes the tree below a prefix for a given amount of time.
+     * @param prefix
+     * the entries every probe starts with
+     * @param millis
+     * how long to keep probing, in milliseconds
+     * @return the estimate
+     */
+    public Estimate sampleFor(int[] prefix, long millis) {
+        Estimate estimate = new Estimate();
+        long stop = System.nanoTime() + millis * 1000000L;
+        do {
+            for(int i = 0; i < 64; i++) {
+                probe(prefix, estimate);
+            }
+        } while(System.nanoTime() < stop);
+        return estimate;
+    }
+
+    /**
+     * Cuts the search tree into subtrees of roughly equal estimated cost.
+     * The most expensive subtree is split into its children until there are
+     * enough of them.  Together the subtrees cover every tableau exactly
+     * once.
+     * @param units
+     * how many subtrees to aim for
+     * @param probes
+     * the number of probes used to estimate each subtree
+     * @return the prefixes of the subtrees, in lexicographic order
+     */
+    public List<int[]> partition(int units, long probes) {
+        PriorityQueue<Unit> queue = new PriorityQueue<>();
+        ArrayList<int[]> finished = new ArrayList<>();
+        queue.add(new Unit(new int[0], sample(new int[0], probes)));
+        SearchState search = new SearchState(TABLEAU);
+        while(!queue.isEmpty() && queue.size() + finished.size() < units) {
+            Unit unit = queue.poll();
+            int w = unit.PREFIX.length;
+            if(w == N || !search.reset(unit.PREFIX, w)) {
+                finished.add(unit.PREFIX);
+                continue;
+            }
+            while(search.next(w + 1)) {
+                int[] child = Arrays.copyOf(search.getEntries(), w + 1);
+                queue.add(new Unit(child, sample(child, probes)));
+            }
+        }
+        for(Unit unit : queue) {
+            finished.add(unit.PREFIX);
+        }
+        finished.sort((a, b) -> {
+            for(int i = 0; i < a.length && i < b.length; i++) {
+                if(a[i] != b[i])
+                    return Integer.compare(a[i], b[i]);
+            }
+            return Integer.compare(a.length, b.length);
+        });
+        return finished;
+    }
+
+    private void probe(int[] prefix, Estimate estimate) {
+        double weight = 1.0, nodes = 0.0;
+        SEARCH.reset(prefix, prefix.length);
+        int k;
+        while((k = SEARCH.candidates(CHOICES)) > 0) {
+            weight *= k;
+            nodes += weight;
+            SEARCH.place(CHOICES[RANDOM.nextInt(k)]);
+        }
+        estimate.add(SEARCH.getDepth() == N ? weight : 0.0, nodes);
+    }
+
+    /**
+     * A subtree waiting to be split, most expensive first.
+     */
+    private static final class Unit implements Comparable<Unit> {
+
+        private final int[] PREFIX;
+        private final double COST;
+
+        Unit(int[] prefix, Estimate estimate) {
+            this.PREFIX = prefix;
+            this.COST = estimate.getNodes();
+        }
+
+        @Override
+        public int compareTo(Unit o) {
+            return Double.compare(o.COST, COST);
+        }
+    }
+
+    /**
+     * The running mean and spread of a batch of probes.
+     */
+    public static final class Estimate {
+
+        private long probes;
+        private double leaves, leafSquares, nodes, nodeSquares;
+
+        private void add(double leaf, double node) {
+            probes++;
+            leaves += leaf;
+            leafSquares += leaf * leaf;
+            nodes += node;
+            nodeSquares += node * node;
+        }
+
+        /**
+         * Returns the number of probes taken.
+         * @return the number of probes
+         */
+        public long getProbes() {return probes;}
+
+        /**
+         * Returns the estimated number of tableaux.
+         * @return the mean of the probes' tableau estimates
+         */
+        public double getTableaux() {return leaves / probes;}
+
+        /**
+         * Returns the half width of a 95% confidence interval around
+         * {@link #getTableaux()}.
+         * @return the margin of error of the tableau estimate
+         */
+        public double getTableauxError() {
+            return error(leaves, leafSquares);
+        }
+
+        /**
+         * Returns the estimated number of search tree nodes.
+         * @return the mean of the probes' node estimates
+         */
+        public double getNodes() {return nodes / probes;}
+
+        /**
+         * Returns the half width of a 95% confidence interval around
+         * {@link #getNodes()}.
+         * @return the margin of error of the node estimate
+         */
+        public double getNodesError() {
+            return error(nodes, nodeSquares);
+        }
+
+        private double error(double sum, double squares) {
+            if(probes < 2)
+                return Double.POSITIVE_INFINITY;
+            double mean = sum / probes;
+            double variance = Math.max(0.0, (squares - sum * mean) /
+                    (probes - 1));
+            return 1.96 * Math.sqrt(variance / probes);
+        }
+    }
+}
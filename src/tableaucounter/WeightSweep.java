@@ -0,0 +1,311 @@
+package tableaucounter;
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import tableaucounter.FrontierCounter.Frontier;
+
+/**
+ * Counts the tableaux of a shape for every weight of one cell in a range, in
+ * a single frontier count instead of one count for each weight.  Until the
+ * swept cell is complete, nothing about the rest of the tableau depends on
+ * how many entries it will end up with: the cells that must come after it
+ * cannot start either way.  So the frontiers reached before then are shared
+ * by every weight, and each of them is counted once for all of them.  Only
+ * when the swept cell takes its last entry does the count split, into the
+ * ordinary count of {@link FrontierCounter} for that weight.
+ * <p>
+ * Which entries must come before which is read from the compiled rules of
+ * the tableau with the largest weight, where a rule on the swept cell's last
+ * entry holds once the cell is closed, whatever its weight.  Like
+ * {@link FrontierCounter}, frontiers are counted one level at a time, packed
+ * into a long when they fit and spread over several words otherwise, with a
+ * flag for whether the swept cell is closed.  Counts are kept in longs, and
+ * the sweep is redone with {@link BigInteger}s if one overflows.
+ * @author Benjamin Levandowski
+ */
+public class WeightSweep {
+
+    private final int[][] WEIGHTS;
+    private final int ROW, COLUMN, FROM, TO;
+    private final int SWEPT;  //The swept cell
+    private final int[][] PREDECESSORS;  //Entries that must be smaller
+    private final int[] CELL_FIRST, CELL_SIZE, WORD, SHIFT;  //For each cell
+    private final int[] CELL_OF, SLOT_OF;  //One for each entry
+    private final long[] MASK;
+    private final int WORDS;  //Longs in a frontier
+    private final int CLOSED_WORD;  //The word holding the closed flag
+    private final long CLOSED;  //Flag of a complete swept cell
+    private final long[] FULL;  //Every other cell full and the swept closed
+
+    /**
+     * Creates a sweep over the weights of one cell.
+     * @param weights
+     * the weights of the tableau, where the swept cell's weight is ignored
+     * @param row
+     * the row of the swept cell, from 0
+     * @param column
+     * the column of the swept cell, from 0
+     * @param from
+     * the smallest weight of the swept cell
+     * @param to
+     * the largest weight of the swept cell
+     * @throws RejectedExecutionException
+     * if the cell does not exist or is fixed, or the range is empty
+     */
+    public WeightSweep(int[][] weights, int row, int column, int from,
+            int to) {
+        if(row < 0 || row >= weights.length || column < 0 ||
+                column >= weights[row].length)
+            throw new RejectedExecutionException("There is no cell in row " +
+                    (row + 1) + " and column " + (column + 1));
+        if(from < 1 || to < from)
+            throw new RejectedExecutionException("Weights " + from + " to " +
+                    to + " cannot be swept");
+        this.WEIGHTS = new int[weights.length][];
+        for(int i = 0; i < weights.length; i++) {
+            WEIGHTS[i] = weights[i].clone();
+        }
+        ROW = row;
+        COLUMN = column;
+        FROM = from;
+        TO = to;
+        boolean rect = true;
+        for(int[] r : weights) {
+            rect = rect && r.length == weights[0].length;
+        }
+        if(row + column == 0 || rect && row == weights.length - 1 &&
+                column == weights[row].length - 1)
+            throw new RejectedExecutionException("The weight of a fixed "
+                    + "corner cannot be swept");
+        //Checks the shape the same way as a count
+        Tableau widest = variant(to);
+        int swept = column;
+        for(int i = 0; i < row; i++) {
+            swept += weights[i].length;
+        }
+        SWEPT = swept - 1;  //The top left cell is fixed
+        int n = widest.getN();
+        int[] sizes = widest.getWeights();
+        int cells = sizes.length - (widest.getRect() ? 2 : 1);
+        CELL_FIRST = new int[cells];
+        CELL_SIZE = new int[cells];
+        WORD = new int[cells];
+        SHIFT = new int[cells];
+        MASK = new long[cells];
+        CELL_OF = new int[n];
+        SLOT_OF = new int[n];
+        int p = 0, word = 0, bits = 0;
+        for(int c = 0; c < cells; c++) {
+            CELL_FIRST[c] = p;
+            CELL_SIZE[c] = sizes[c + 1];
+            int width = 32 - Integer.numberOfLeadingZeros(CELL_SIZE[c]);
+            if(bits + width > 63) {  //Cells never straddle two words
+                word++;
+                bits = 0;
+            }
+            WORD[c] = word;
+            SHIFT[c] = bits;
+            MASK[c] = (1L << width) - 1;
+            bits += width;
+            for(int k = 0; k < CELL_SIZE[c]; k++) {
+                CELL_OF[p] = c;
+                SLOT_OF[p++] = k;
+            }
+        }
+        if(bits == 63) {
+            word++;
+            bits = 0;
+        }
+        CLOSED_WORD = word;
+        CLOSED = 1L << bits;
+        WORDS = word + 1;
+        FULL = new long[WORDS];
+        for(int c = 0; c < cells; c++) {
+            if(c != SWEPT)
+                FULL[WORD[c]] += (long) CELL_SIZE[c] << SHIFT[c];
+        }
+        FULL[CLOSED_WORD] |= CLOSED;
+        PREDECESSORS = new int[n][];
+        CompiledRules rules = widest.getCompiledRules();
+        final int[] offsets = rules.getOffsets(), others = rules.getOthers();
+        for(int i = 0; i < n; i++) {
+            int c = offsets[i];
+            while(c < offsets[i + 1] && others[c] >= 0) {
+                c++;
+            }
+            PREDECESSORS[i] = Arrays.copyOfRange(others, offsets[i], c);
+        }
+    }
+
+    /**
+     * Counts the tableaux for every weight of the swept cell.
+     * @return the number of tableaux for each weight, from the smallest
+     */
+    public BigInteger[] count() {
+        BigInteger[] counts = new BigInteger[TO - FROM + 1];
+        if(WORDS == 1) {
+            try {
+                long[] reached = reach();
+                for(int k = 0; k < counts.length; k++) {
+                    counts[k] = BigInteger.valueOf(reached[k]);
+                }
+                return counts;
+            } catch(ArithmeticException e) {
+                //Redone below with BigIntegers
+            }
+        }
+        return reachWide();
+    }
+
+    /**
+     * Returns the tableau with the swept cell at one of its weights.
+     * @param weight
+     * the weight of the swept cell
+     * @return the tableau with that weight
+     */
+    public Tableau variant(int weight) {
+        int[][] weights = new int[WEIGHTS.length][];
+        for(int i = 0; i < weights.length; i++) {
+            weights[i] = WEIGHTS[i].clone();
+        }
+        weights[ROW][COLUMN] = weight;
+        return new Tableau(weights);
+    }
+
+    //Counts the ways to reach each frontier from the empty one, a level at
+    //a time, adding up the complete frontiers by the weight the swept cell
+    //ended up with
+    private long[] reach() {
+        long[] total = new long[TO - FROM + 1];
+        long sweptMask = MASK[SWEPT] << SHIFT[SWEPT];
+        LongLongMap counts = new LongLongMap();
+        counts.put(0L, 1L);
+        long[] level = {0L};
+        int size = 1;
+        while(size > 0) {
+            LongLongMap next = new LongLongMap();
+            long[] reached = new long[Math.max(16, size)];
+            int found = 0;
+            for(int i = 0; i < size; i++) {
+                long state = level[i], ways = counts.get(state, 0L);
+                boolean closed = (state & CLOSED) != 0;
+                if((state & ~sweptMask) == FULL[0]) {
+                    int k = (int) ((state & sweptMask) >>> SHIFT[SWEPT]);
+                    total[k - FROM] = Math.addExact(total[k - FROM], ways);
+                    continue;
+                }
+                for(int c = 0; c < CELL_FIRST.length; c++) {
+                    int k = (int) ((state >>> SHIFT[c]) & MASK[c]);
+                    if(k == CELL_SIZE[c] || c == SWEPT && closed ||
+                            !ready(state, CELL_FIRST[c] + k, closed))
+                        continue;
+                    long after = state + (1L << SHIFT[c]);
+                    //The entry just placed may be the swept cell's last, and
+                    //must be once it reaches the largest weight
+                    int first = c == SWEPT && k + 1 >= FROM ? 1 : 0;
+                    int last = c == SWEPT && k + 1 == TO ? 1 : 0;
+                    for(int close = first; close >= last; close--) {
+                        long key = close == 1 ? after | CLOSED : after;
+                        long before = next.get(key, -1L);
+                        if(before < 0) {
+                            if(found == reached.length)
+                                reached = Arrays.copyOf(reached, found << 1);
+                            reached[found++] = key;
+                            before = 0L;
+                        }
+                        next.put(key, Math.addExact(before, ways));
+                    }
+                }
+            }
+            counts = next;
+            level = reached;
+            size = found;
+        }
+        return total;
+    }
+
+    //The same as reach() for frontiers of several words or counts too large
+    //for a long
+    private BigInteger[] reachWide() {
+        BigInteger[] total = new BigInteger[TO - FROM + 1];
+        Arrays.fill(total, BigInteger.ZERO);
+        Frontier start = new Frontier(new long[WORDS]);
+        HashMap<Frontier, BigInteger> counts = new HashMap<>();
+        counts.put(start, BigInteger.ONE);
+        ArrayList<Frontier> level = new ArrayList<>();
+        level.add(start);
+        while(!level.isEmpty()) {
+            HashMap<Frontier, BigInteger> next = new HashMap<>();
+            ArrayList<Frontier> reached = new ArrayList<>();
+            for(Frontier frontier : level) {
+                long[] state = frontier.WORDS;
+                BigInteger ways = counts.get(frontier);
+                boolean closed = (state[CLOSED_WORD] & CLOSED) != 0;
+                int swept = (int) ((state[WORD[SWEPT]] >>> SHIFT[SWEPT]) &
+                        MASK[SWEPT]);
+                if(complete(state, swept)) {
+                    total[swept - FROM] = total[swept - FROM].add(ways);
+                    continue;
+                }
+                for(int c = 0; c < CELL_FIRST.length; c++) {
+                    int k = (int) ((state[WORD[c]] >>> SHIFT[c]) & MASK[c]);
+                    if(k == CELL_SIZE[c] || c == SWEPT && closed ||
+                            !ready(state, CELL_FIRST[c] + k, closed))
+                        continue;
+                    int first = c == SWEPT && k + 1 >= FROM ? 1 : 0;
+                    int last = c == SWEPT && k + 1 == TO ? 1 : 0;
+                    for(int close = first; close >= last; close--) {
+                        long[] after = state.clone();
+                        after[WORD[c]] += 1L << SHIFT[c];
+                        if(close == 1)
+                            after[CLOSED_WORD] |= CLOSED;
+                        Frontier key = new Frontier(after);
+                        BigInteger before = next.get(key);
+                        if(before == null)
+                            reached.add(key);
+                        next.put(key, before == null ? ways :
+                                before.add(ways));
+                    }
+                }
+            }
+            counts = next;
+            level = reached;
+        }
+        return total;
+    }
+
+    //Whether every cell but the swept one is full and the swept one closed
+    private boolean complete(long[] state, int swept) {
+        for(int w = 0; w < WORDS; w++) {
+            long full = FULL[w];
+            if(w == WORD[SWEPT])
+                full += (long) swept << SHIFT[SWEPT];
+            if(state[w] != full)
+                return false;
+        }
+        return true;
+    }
+
+    //Whether every entry that must be smaller than entry p is placed, where
+    //the swept cell's entries are placed only once it is closed
+    private boolean ready(long state, int p, boolean closed) {
+        for(int a : PREDECESSORS[p]) {
+            int c = CELL_OF[a];
+            if(c == SWEPT && c != CELL_OF[p] ? !closed :
+                    ((state >>> SHIFT[c]) & MASK[c]) <= SLOT_OF[a])
+                return false;
+        }
+        return true;
+    }
+
+    private boolean ready(long[] state, int p, boolean closed) {
+        for(int a : PREDECESSORS[p]) {
+            int c = CELL_OF[a];
+            if(c == SWEPT && c != CELL_OF[p] ? !closed :
+                    ((state[WORD[c]] >>> SHIFT[c]) & MASK[c]) <= SLOT_OF[a])
+                return false;
+        }
+        return true;
+    }
+}
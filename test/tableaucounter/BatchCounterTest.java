@@ -0,0 +1,36 @@
+package tableaucounter;
+
+import java.io.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a shape that cannot be counted leaves the rest of a
+ * {@link BatchCounter} batch counted.
+ * @author Benjamin Levandowski
+ */
+public class BatchCounterTest {
+
+    private static final int[][] GOOD = {{1, 2, 1}, {1, 1}};
+    private static final int[][] TOO_SMALL = {{1}};  //No entries to search
+    private static final int[][] NOT_A_SHAPE = {{1, 1}, {1, 1, 1}};
+
+    @Test
+    public void badShapesDoNotStopTheBatch() throws IOException {
+        long good = new Counter(new Tableau(GOOD)).count(new CountingSink());
+        for(String engine : new String[] {"frontier", "search"}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long[] totals = new BatchCounter(2, engine, new PrintStream(out))
+                    .count(Arrays.asList(GOOD, TOO_SMALL, GOOD, NOT_A_SHAPE,
+                    GOOD));
+            assertArrayEquals(engine, new long[] {good, -1L, good, -1L, good},
+                    totals);
+            String printed = out.toString();
+            for(int shape = 1; shape <= 5; shape++) {
+                assertTrue(engine + " " + shape, printed.contains("Shape " +
+                        shape));
+            }
+        }
+    }
+}
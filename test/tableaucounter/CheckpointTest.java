@@ -0,0 +1,84 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a {@link ForkJoinCounter} resumed from a {@link Checkpoint}
+ * counts the same tableaux as a run that was never stopped.
+ * @author Benjamin Levandowski
+ */
+public class CheckpointTest {
+
+    private static final Tableau TABLEAU = new Tableau(new int[][] {
+            {1, 1, 2, 1}, {1, 2, 1}, {3}});
+    private static final long OFF = 5000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumedCountMatchesUninterruptedCount() throws IOException {
+        long total = new ForkJoinCounter(TABLEAU, 2).count();
+        Path file = stop(0L);
+        assertEquals(total, resume(file));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void resumedCountUsesTheSavedCounts() throws IOException {
+        //Counts saved too high show up in the total, so they were not redone
+        long total = new ForkJoinCounter(TABLEAU, 2).count();
+        assertEquals(total + 2 * OFF, resume(stop(OFF)));
+    }
+
+    //Writes the checkpoint of a run stopped with the first subtree below
+    //the second entry finished and the largest other one halfway through,
+    //with each saved count too high by some amount
+    private Path stop(long off) throws IOException {
+        List<int[]> prefixes = new ArrayList<>();
+        SearchState search = new SearchState(TABLEAU);
+        while(search.next(2)) {
+            prefixes.add(Arrays.copyOf(search.getEntries(), 2));
+        }
+        long[] sizes = new long[prefixes.size()];
+        int largest = 1;
+        for(int i = 0; i < sizes.length; i++) {
+            sizes[i] = count(search, prefixes.get(i), Long.MAX_VALUE);
+            if(i > 0 && sizes[i] > sizes[largest])
+                largest = i;
+        }
+        assertTrue(sizes[largest] > 1);
+        Path file = folder.getRoot().toPath().resolve("checkpoint.txt");
+        Checkpoint checkpoint = new Checkpoint(file, TABLEAU);
+        checkpoint.finish(prefixes.get(0), sizes[0] + off);
+        long found = count(search, prefixes.get(largest),
+                sizes[largest] / 2);
+        checkpoint.progress(prefixes.get(largest), search.getEntries(),
+                found + off);
+        checkpoint.write();
+        return file;
+    }
+
+    //Searches at most a number of tableaux below a prefix, leaving the
+    //search on the last one
+    private static long count(SearchState search, int[] prefix, long most) {
+        search.reset(prefix, prefix.length);
+        long found = 0L;
+        while(found < most && search.next(TABLEAU.getN())) {
+            found++;
+        }
+        return found;
+    }
+
+    private static long resume(Path file) throws IOException {
+        ForkJoinCounter counter = new ForkJoinCounter(TABLEAU, 2,
+                Checkpoint.load(file, TABLEAU), 60L);
+        counter.setSymmetry(false);
+        return counter.count();
+    }
+}
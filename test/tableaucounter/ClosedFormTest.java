@@ -0,0 +1,91 @@
+package tableaucounter;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the formulas of {@link ClosedForm} against the search of
+ * {@link Counter}, and that shapes without a formula are left to be counted.
+ * @author Benjamin Levandowski
+ */
+public class ClosedFormTest {
+
+    private static final int CELLS = 8;
+
+    @Test
+    public void hookLengthMatchesSearch() throws IOException {
+        for(int n = 3; n <= CELLS; n++) {
+            for(int[] shape : Shapes.partitions(n)) {
+                Tableau tableau = new Tableau(weights(shape, 1));
+                BigInteger formula = ClosedForm.count(tableau);
+                assertNotNull(tableau.describe(), formula);
+                assertEquals(tableau.describe(), search(tableau),
+                        formula.longValue());
+            }
+        }
+    }
+
+    @Test
+    public void singleRowsAndColumnsHaveOneTableau() throws IOException {
+        for(int n = 3; n <= CELLS; n++) {
+            int[][] row = weights(new int[] {n}, 2);
+            int[] ones = new int[n];
+            Arrays.fill(ones, 1);
+            int[][] column = weights(ones, 3);
+            for(int[][] weights : new int[][][] {row, column}) {
+                Tableau tableau = new Tableau(weights);
+                assertEquals(BigInteger.ONE, ClosedForm.count(tableau));
+                assertEquals(tableau.describe(), 1L, search(tableau));
+            }
+        }
+    }
+
+    @Test
+    public void setValuedShapesHaveNoFormula() {
+        for(int n = 3; n <= CELLS; n++) {
+            for(int[] shape : Shapes.partitions(n)) {
+                if(shape.length == 1 || shape[0] == 1)
+                    continue;
+                int[][] weights = weights(shape, 1);
+                weights[0][1] = 2;
+                assertNull(ClosedForm.count(new Tableau(weights)));
+            }
+        }
+    }
+
+    @Test
+    public void hookLengthOfKnownShapes() {
+        assertEquals(BigInteger.valueOf(42L), ClosedForm.hookLength(
+                new int[] {5, 5}));
+        assertEquals(BigInteger.valueOf(768), ClosedForm.hookLength(
+                new int[] {4, 3, 2, 1}));
+    }
+
+    @Test
+    public void verifyFindsNoMismatch() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ClosedForm.verify(7, new PrintStream(out)));
+    }
+
+    private static long search(Tableau tableau) throws IOException {
+        return new Counter(tableau).count(new CountingSink());
+    }
+
+    //Weights 1 everywhere but the second cell of a single row or column,
+    //which is never fixed
+    private static int[][] weights(int[] shape, int second) {
+        int[][] weights = new int[shape.length][];
+        for(int i = 0; i < shape.length; i++) {
+            weights[i] = new int[shape[i]];
+            Arrays.fill(weights[i], 1);
+        }
+        if(shape.length == 1)
+            weights[0][1] = second;
+        else if(shape[0] == 1)
+            weights[1][0] = second;
+        return weights;
+    }
+}
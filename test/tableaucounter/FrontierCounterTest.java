@@ -0,0 +1,46 @@
+package tableaucounter;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the counts of {@link FrontierCounter} against the search of
+ * {@link Counter}.
+ * @author Benjamin Levandowski
+ */
+public class FrontierCounterTest {
+
+    private static final int CELLS = 7;
+    private static final int SEEDS = 4;
+
+    @Test
+    public void countMatchesSearch() throws IOException {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            assertCounts(tableau);
+        }
+    }
+
+    @Test
+    public void countsFrontiersOfSeveralWords() throws IOException {
+        //A row of 33 cells of weight 3 needs two bits a cell
+        int[][] weights = {new int[33], {1, 1}};
+        Arrays.fill(weights[0], 3);
+        weights[0][0] = 1;
+        Tableau tableau = new Tableau(weights);
+        assertTrue(new FrontierCounter(tableau).getWords() > 1);
+        assertCounts(tableau);
+    }
+
+    private static void assertCounts(Tableau tableau) throws IOException {
+        long search = new Counter(tableau).count(new CountingSink());
+        String message = tableau.describe();
+        assertEquals(message, search, new FrontierCounter(tableau).count());
+        assertEquals(message, BigInteger.valueOf(search),
+                new FrontierCounter(tableau).countExact());
+        assertEquals(message, BigInteger.valueOf(search),
+                new FrontierCounter(tableau).countExact(true));
+    }
+}
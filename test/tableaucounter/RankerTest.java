@@ -0,0 +1,73 @@
+package tableaucounter;
+
+import java.io.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link Ranker} numbers tableaux in the order {@link Counter}
+ * finds them, and that a range written by
+ * {@link Counter#count(BufferedWriter, long, long)} is the same text as that
+ * part of the whole output.
+ * @author Benjamin Levandowski
+ */
+public class RankerTest {
+
+    private static final int CELLS = 7;
+    private static final int SEEDS = 4;
+
+    @Test
+    public void unrankFollowsSearchOrder() throws IOException {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            List<int[]> all = search(tableau);
+            Ranker ranker = new Ranker(tableau);
+            assertEquals(tableau.describe(), all.size(), ranker.size());
+            for(int k = 0; k < all.size(); k++) {
+                int[] entries = ranker.unrank(k);
+                assertArrayEquals(tableau.describe() + " " + k, all.get(k),
+                        entries);
+                assertEquals(tableau.describe(), k, ranker.rank(entries));
+            }
+        }
+    }
+
+    @Test
+    public void rangesAreSlicesOfTheWholeOutput() throws IOException {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            //Each tableau ends with the blank line that separates them
+            String[] all = write(tableau, 0L, -1L).split("(?<=\n\n)");
+            int size = all.length;
+            int[][] ranges = {{0, size}, {0, 1}, {size - 1, size},
+                    {size / 3, 2 * size / 3}, {size / 2, size / 2}};
+            for(int[] range : ranges) {
+                StringBuilder slice = new StringBuilder();
+                for(int k = range[0]; k < range[1]; k++) {
+                    slice.append(all[k]);
+                }
+                assertEquals(tableau.describe() + " " + Arrays.toString(range),
+                        slice.toString(), write(tableau, range[0], range[1]));
+            }
+        }
+    }
+
+    private static List<int[]> search(Tableau tableau) throws IOException {
+        ArrayList<int[]> all = new ArrayList<>();
+        new Counter(tableau).count(entries -> all.add(entries.clone()));
+        return all;
+    }
+
+    //Writes the tableaux from one index to another, or all of them with a
+    //negative end
+    private static String write(Tableau tableau, long from, long to) throws
+            IOException {
+        StringWriter text = new StringWriter();
+        try(BufferedWriter writer = new BufferedWriter(text)) {
+            if(to < 0)
+                new Counter(tableau).count(writer);
+            else
+                new Counter(tableau).count(writer, from, to);
+        }
+        return text.toString();
+    }
+}
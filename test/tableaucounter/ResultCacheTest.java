@@ -0,0 +1,83 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link ResultCache} keeps its results across runs, and that
+ * an eviction keeps the recently used ones.
+ * @author Benjamin Levandowski
+ */
+public class ResultCacheTest {
+
+    private static final int SHAPES = 300;
+    //Leaves the data file about 4 kB, enough for some of the shapes only
+    private static final long SMALL = 32 + 2 * 4096 * 32 + 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resultsSurviveReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try(ResultCache cache = ResultCache.open(directory,
+                ResultCache.DEFAULT_LIMIT)) {
+            cache.put(shape(1), 11L, Collections.emptyMap());
+            cache.put(shape(2), -1L, Collections.singletonMap("2,", 5L));
+            cache.put(shape(2), -1L, Collections.singletonMap("3,", 7L));
+        }
+        try(ResultCache cache = ResultCache.open(directory,
+                ResultCache.DEFAULT_LIMIT)) {
+            assertEquals(11L, cache.get(shape(1)).getTotal());
+            ResultCache.Result partial = cache.get(shape(2));
+            assertEquals(-1L, partial.getTotal());
+            Map<String, Long> subtrees = new HashMap<>();
+            subtrees.put("2,", 5L);
+            subtrees.put("3,", 7L);
+            assertEquals(subtrees, partial.getSubtrees());
+            assertNull(cache.get(shape(3)));
+            //A known total drops the subtrees
+            cache.put(shape(2), 12L, Collections.singletonMap("4,", 1L));
+        }
+        try(ResultCache cache = ResultCache.open(directory,
+                ResultCache.DEFAULT_LIMIT)) {
+            assertEquals(12L, cache.get(shape(2)).getTotal());
+            assertTrue(cache.get(shape(2)).getSubtrees().isEmpty());
+        }
+    }
+
+    @Test
+    public void evictionKeepsRecentlyUsedResults() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try(ResultCache cache = ResultCache.open(directory, SMALL)) {
+            for(int k = 1; k <= SHAPES; k++) {
+                cache.put(shape(k), k, Collections.emptyMap());
+                //Looking up the first shape keeps it recently used
+                assertEquals(1L, cache.get(shape(1)).getTotal());
+            }
+        }
+        try(ResultCache cache = ResultCache.open(directory, SMALL)) {
+            assertEquals(1L, cache.get(shape(1)).getTotal());
+            assertEquals(SHAPES, cache.get(shape(SHAPES)).getTotal());
+            assertNull(cache.get(shape(2)));
+        }
+        //Only the data file of the latest generation is left
+        ArrayList<String> data = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "results*.dat*")) {
+            for(Path file : files) {
+                data.add(file.getFileName().toString());
+            }
+        }
+        assertEquals(1, data.size());
+        assertNotEquals("results-0.dat", data.get(0));
+    }
+
+    private static Tableau shape(int k) {
+        return new Tableau(new int[][] {{1, k}, {1}});
+    }
+}
@@ -0,0 +1,84 @@
+package tableaucounter;
+
+import java.io.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link FrontierCounter#sample(Random)} draws only tableaux of
+ * the shape, and draws each of them about as often as the others.
+ * @author Benjamin Levandowski
+ */
+public class SampleTest {
+
+    private static final int CELLS = 7;
+    private static final int SEEDS = 4;
+    private static final int DRAWS = 50;  //Of each shape
+    private static final int EXPECTED = 100;  //Draws of each tableau
+
+    @Test
+    public void samplesAreTableaux() {
+        List<Tableau> tableaux = Shapes.tableaux(2, CELLS, SEEDS);
+        tableaux.add(twoWords());
+        Random random = new Random(1);
+        for(Tableau tableau : tableaux) {
+            Ranker ranker = new Ranker(tableau);
+            for(int[] entries : new FrontierCounter(tableau).sample(random,
+                    DRAWS)) {
+                //Throws unless the entries are a tableau of the shape
+                long rank = ranker.rank(entries);
+                assertTrue(tableau.describe(), rank >= 0 &&
+                        rank < ranker.size());
+            }
+        }
+    }
+
+    @Test
+    public void samplesAreUniform() throws IOException {
+        assertUniform(new Tableau(new int[][] {{1, 2, 1}, {2, 1}, {1}}));
+    }
+
+    @Test
+    public void samplesOfSeveralWordsAreUniform() throws IOException {
+        Tableau tableau = twoWords();
+        assertTrue(new FrontierCounter(tableau).getWords() > 1);
+        assertUniform(tableau);
+    }
+
+    //Draws every tableau the search finds EXPECTED times on average, and
+    //checks that the chi-square statistic of the draws stays within about
+    //four standard deviations of its mean
+    private static void assertUniform(Tableau tableau) throws IOException {
+        HashMap<String, Integer> index = new HashMap<>();
+        new Counter(tableau).count(entries -> index.put(Arrays.toString(
+                entries), index.size()));
+        int size = index.size();
+        assertTrue(tableau.describe(), size > 1);
+        long[] drawn = new long[size];
+        FrontierCounter counter = new FrontierCounter(tableau);
+        Random random = new Random(2);
+        for(long i = (long) size * EXPECTED; i > 0; i--) {
+            int[] entries = counter.sample(random);
+            Integer k = index.get(Arrays.toString(entries));
+            assertNotNull(Arrays.toString(entries), k);
+            drawn[k]++;
+        }
+        double chiSquare = 0.0;
+        for(long d : drawn) {
+            assertTrue(tableau.describe(), d > 0);
+            chiSquare += (double) (d - EXPECTED) * (d - EXPECTED) / EXPECTED;
+        }
+        int freedom = size - 1;
+        assertTrue(tableau.describe() + " " + chiSquare, chiSquare <
+                freedom + 4 * Math.sqrt(2.0 * freedom));
+    }
+
+    //A row of 33 cells of weight 3 needs two bits a cell
+    private static Tableau twoWords() {
+        int[][] weights = {new int[33], {1}};
+        Arrays.fill(weights[0], 3);
+        weights[0][0] = 1;
+        return new Tableau(weights);
+    }
+}
@@ -0,0 +1,108 @@
+package tableaucounter;
+
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that narrowing the candidates of an entry once visits the same
+ * tableaux, nodes and pruned branches as checking every candidate on its own,
+ * the search {@code -Dtableaucounter.scalar=true} selects.
+ * @author Benjamin Levandowski
+ */
+public class SearchStateTest {
+
+    private static final int CELLS = 7;
+    private static final int SEEDS = 4;
+
+    @Test
+    public void narrowingMatchesScalarSearch() {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            SearchState narrowed = new SearchState(tableau, true, false);
+            SearchState scalar = new SearchState(tableau, true, true);
+            assertSameSearch(tableau.describe(), narrowed, scalar);
+        }
+    }
+
+    @Test
+    public void narrowingMatchesScalarSearchBelowPrefixes() {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            SearchState prefixes = new SearchState(tableau);
+            int depth = Math.min(2, tableau.getN());
+            while(prefixes.next(depth)) {
+                int[] prefix = prefixes.getEntries().clone();
+                SearchState narrowed = new SearchState(tableau, true, false);
+                SearchState scalar = new SearchState(tableau, true, true);
+                assertEquals(narrowed.reset(prefix, depth),
+                        scalar.reset(prefix, depth));
+                assertSameSearch(tableau.describe() + " below " + Arrays
+                        .toString(Arrays.copyOf(prefix, depth)), narrowed,
+                        scalar);
+            }
+        }
+    }
+
+    @Test
+    public void narrowingMatchesScalarSearchAfterRebase() {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            //Stop halfway, then resume both searches from that tableau
+            SearchState first = new SearchState(tableau);
+            long half = first.countAll() / 2;
+            if(half == 0)
+                continue;
+            SearchState stopped = new SearchState(tableau);
+            for(long i = 0; i < half; i++) {
+                assertTrue(stopped.next(tableau.getN()));
+            }
+            int[] entries = stopped.getEntries().clone();
+            SearchState narrowed = new SearchState(tableau, true, false);
+            SearchState scalar = new SearchState(tableau, true, true);
+            narrowed.reset(entries, entries.length);
+            narrowed.rebase(0);
+            scalar.reset(entries, entries.length);
+            scalar.rebase(0);
+            assertSameSearch(tableau.describe() + " resumed", narrowed,
+                    scalar);
+        }
+    }
+
+    @Test
+    public void candidatesMatchNarrowedSearch() {
+        for(Tableau tableau : Shapes.tableaux(2, CELLS, SEEDS)) {
+            //Every value candidates lists must start a branch next visits
+            SearchState sampled = new SearchState(tableau);
+            int[] values = new int[tableau.getN()];
+            Random random = new Random(tableau.getN());
+            int k;
+            while((k = sampled.candidates(values)) > 0) {
+                int depth = sampled.getDepth();
+                int[] prefix = Arrays.copyOf(sampled.getEntries(), depth);
+                SearchState search = new SearchState(tableau);
+                search.reset(prefix, depth);
+                int found = 0;
+                while(search.next(depth + 1)) {
+                    assertEquals(values[found++],
+                            search.getEntries()[depth]);
+                }
+                assertEquals(tableau.describe(), k, found);
+                sampled.place(values[random.nextInt(k)]);
+            }
+        }
+    }
+
+    private static void assertSameSearch(String message,
+            SearchState narrowed, SearchState scalar) {
+        int n = narrowed.getN();
+        while(true) {
+            boolean more = narrowed.next(n);
+            assertEquals(message, more, scalar.next(n));
+            if(!more)
+                break;
+            assertArrayEquals(message, narrowed.getEntries(),
+                    scalar.getEntries());
+            assertEquals(message, narrowed.getChanged(), scalar.getChanged());
+        }
+        assertEquals(message, scalar.getNodes(), narrowed.getNodes());
+        assertEquals(message, scalar.getPruned(), narrowed.getPruned());
+    }
+}
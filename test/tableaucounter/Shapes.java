@@ -0,0 +1,111 @@
+package tableaucounter;
+
+import java.util.*;
+
+/**
+ * Generates the small shapes and weights the tests count in more than one
+ * way.
+ * @author Benjamin Levandowski
+ */
+final class Shapes {
+
+    private Shapes() {}
+
+    /**
+     * Lists every shape of a number of cells.
+     * @param n
+     * the number of cells
+     * @return the row lengths of each shape, longest row first
+     */
+    static List<int[]> partitions(int n) {
+        return ClosedForm.partitions(n, n);
+    }
+
+    /**
+     * Gives a shape weights of 1, or with a seed above 0, about a third of
+     * its cells a weight of 2 instead.  The fixed corners always keep a
+     * weight of 1.
+     * @param shape
+     * the row lengths
+     * @param seed
+     * 0 for every weight 1, or the seed of the cells given a weight of 2
+     * @return the weights of each row
+     */
+    static int[][] weights(int[] shape, int seed) {
+        Random random = new Random(seed);
+        int[][] weights = new int[shape.length][];
+        for(int i = 0; i < shape.length; i++) {
+            weights[i] = new int[shape[i]];
+            for(int j = 0; j < shape[i]; j++) {
+                weights[i][j] = seed > 0 && random.nextInt(3) == 0 ? 2 : 1;
+            }
+        }
+        weights[0][0] = 1;
+        int last = shape.length - 1;
+        weights[last][shape[last] - 1] = 1;
+        return weights;
+    }
+
+    /**
+     * Lists every shape of a range of sizes with the weights of a number of
+     * seeds each.
+     * @param fewest
+     * the smallest number of cells
+     * @param most
+     * the largest number of cells
+     * @param seeds
+     * the number of weightings of each shape, from seed 0
+     * @return the weights of every shape
+     */
+    static List<int[][]> weights(int fewest, int most, int seeds) {
+        ArrayList<int[][]> all = new ArrayList<>();
+        for(int n = fewest; n <= most; n++) {
+            for(int[] shape : partitions(n)) {
+                for(int seed = 0; seed < seeds; seed++) {
+                    all.add(weights(shape, seed));
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Lists the tableaux of {@link #weights(int, int, int)}.
+     * @param fewest
+     * the smallest number of cells
+     * @param most
+     * the largest number of cells
+     * @param seeds
+     * the number of weightings of each shape, from seed 0
+     * @return every tableau
+     */
+    static List<Tableau> tableaux(int fewest, int most, int seeds) {
+        ArrayList<Tableau> all = new ArrayList<>();
+        for(int[][] weights : weights(fewest, most, seeds)) {
+            all.add(new Tableau(weights));
+        }
+        return all;
+    }
+
+    /**
+     * Returns true for the cells whose entries are fixed, whose weights
+     * cannot change.
+     * @param weights
+     * the weights of each row
+     * @param i
+     * the row, from 0
+     * @param j
+     * the column, from 0
+     * @return true for the top left cell and the bottom right cell of a
+     * rectangle
+     */
+    static boolean fixed(int[][] weights, int i, int j) {
+        int last = weights.length - 1;
+        boolean rect = true;
+        for(int[] row : weights) {
+            rect = rect && row.length == weights[0].length;
+        }
+        return i + j == 0 || rect && i == last &&
+                j == weights[last].length - 1;
+    }
+}
@@ -0,0 +1,57 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the shards of {@link ShardedWriter}, once merged, are the same
+ * file byte for byte as the one {@link Counter} writes by itself.
+ * @author Benjamin Levandowski
+ */
+public class ShardedWriterTest {
+
+    private static final int PARALLELISM = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mergedShardsMatchSingleWriter() throws IOException {
+        List<Tableau> tableaux = Shapes.tableaux(5, 7, 2);
+        tableaux.add(new Tableau(new int[][] {{1, 2, 2}, {2, 2, 2},
+                {2, 2, 1}}));
+        for(Tableau tableau : tableaux) {
+            Path directory = folder.newFolder().toPath();
+            ShardedWriter writer = new ShardedWriter(tableau, PARALLELISM,
+                    directory);
+            long total = writer.count();
+            assertEquals(tableau.describe(), total,
+                    ShardedWriter.merge(directory));
+            assertArrayEquals(tableau.describe(), single(tableau),
+                    Files.readAllBytes(directory.resolve("output.txt")));
+            //Only the merged file is left
+            try(DirectoryStream<Path> files = Files.newDirectoryStream(
+                    directory)) {
+                for(Path file : files) {
+                    assertEquals("output.txt", file.getFileName().toString());
+                }
+            }
+        }
+    }
+
+    //The file TableauCounter.writeCount writes
+    private static byte[] single(Tableau tableau) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                out, StandardCharsets.UTF_8))) {
+            long total = new Counter(tableau).count(writer);
+            writer.write("There are " + total + " tableaux of this shape.");
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+package tableaucounter;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the slices of {@link SliceCounter} add up to the count of the
+ * whole search, both directly and through the files they leave behind.
+ * @author Benjamin Levandowski
+ */
+public class SliceCounterTest {
+
+    private static final int[] CUTS = {1, 2, 3, 5};
+    private static final int PARALLELISM = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void slicesAddUpToTheWholeCount() throws IOException {
+        List<Tableau> tableaux = Shapes.tableaux(4, 7, 2);
+        tableaux.add(new Tableau(new int[][] {{1, 2, 2}, {2, 2, 2},
+                {2, 2, 1}}));
+        for(Tableau tableau : tableaux) {
+            long whole = new Counter(tableau).count(new CountingSink());
+            for(int slices : CUTS) {
+                String message = tableau.describe() + " in " + slices;
+                Path directory = folder.newFolder().toPath();
+                long sum = 0L;
+                for(int slice = 1; slice <= slices; slice++) {
+                    SliceCounter counter = new SliceCounter(tableau, slice,
+                            slices, PARALLELISM);
+                    long count = counter.count();
+                    counter.write(directory, count);
+                    sum += count;
+                }
+                assertEquals(message, whole, sum);
+                assertEquals(message, whole, SliceCounter.merge(directory,
+                        tableau));
+            }
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void mergeRejectsAMissingSlice() throws IOException {
+        Tableau tableau = new Tableau(new int[][] {{1, 2, 2}, {2, 2, 2},
+                {2, 2, 1}});
+        Path directory = folder.getRoot().toPath();
+        for(int slice = 1; slice <= 3; slice += 2) {
+            SliceCounter counter = new SliceCounter(tableau, slice, 3,
+                    PARALLELISM);
+            counter.write(directory, counter.count());
+        }
+        SliceCounter.merge(directory, tableau);
+    }
+}
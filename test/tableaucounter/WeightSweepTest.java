@@ -0,0 +1,79 @@
+package tableaucounter;
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks every weight of a {@link WeightSweep} against a count of
+ * {@link FrontierCounter} for that weight alone.
+ * @author Benjamin Levandowski
+ */
+public class WeightSweepTest {
+
+    private static final int CELLS = 6;
+    private static final int WEIGHT = 3;
+
+    @Test
+    public void sweepMatchesCountForEachWeight() {
+        for(int n = 2; n <= CELLS; n++) {
+            for(int[] shape : Shapes.partitions(n)) {
+                for(int seed = 0; seed < 3; seed++) {
+                    int[][] weights = Shapes.weights(shape, seed);
+                    for(int i = 0; i < shape.length; i++) {
+                        for(int j = 0; j < shape[i]; j++) {
+                            if(Shapes.fixed(weights, i, j))
+                                continue;
+                            assertSweep(weights, i, j, 1, WEIGHT);
+                            assertSweep(weights, i, j, 2, WEIGHT);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sweepsFrontiersOfSeveralWords() {
+        //Two rows of 17 cells of weight 3 need two bits a cell
+        int[][] weights = new int[2][17];
+        for(int[] row : weights) {
+            Arrays.fill(row, 3);
+        }
+        weights[0][0] = 1;
+        weights[1][16] = 1;
+        assertTrue(new FrontierCounter(new Tableau(weights)).getWords() > 1);
+        assertSweep(weights, 0, 5, 1, 4);
+        assertSweep(weights, 1, 0, 2, 3);
+    }
+
+    @Test
+    public void sweepsCountsTooLargeForALong() {
+        int[][] weights = new int[8][8];
+        for(int[] row : weights) {
+            Arrays.fill(row, 1);
+        }
+        BigInteger[] counts = assertSweep(weights, 3, 4, 1, 2);
+        assertTrue(counts[0].bitLength() > 63);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsAFixedCorner() {
+        new WeightSweep(new int[][] {{1, 1}, {1, 1}}, 1, 1, 1, 2);
+    }
+
+    private static BigInteger[] assertSweep(int[][] weights, int row,
+            int column, int from, int to) {
+        WeightSweep sweep = new WeightSweep(weights, row, column, from, to);
+        BigInteger[] counts = sweep.count();
+        assertEquals(to - from + 1, counts.length);
+        for(int k = 0; k < counts.length; k++) {
+            Tableau tableau = sweep.variant(from + k);
+            assertEquals(tableau.describe(), new FrontierCounter(tableau)
+                    .countExact(), counts[k]);
+        }
+        return counts;
+    }
+}